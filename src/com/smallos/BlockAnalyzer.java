@@ -0,0 +1,232 @@
+package com.smallos;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Closure analysis over every AST.Block in a program.
+//   CLEAN:   references no outer variable, self or field and has no ^, so one instance can be shared.
+//   COPYING: captures self and/or outer variables that are never reassigned, so their values can be copied in.
+//   FULL:    writes or shares a reassigned outer variable, or answers with ^, so it needs a heap context.
+// Independently, block literals passed straight to control selectors (ifTrue:, whileTrue:, to:do: ...)
+// never escape and can be inlined or stack-allocated.
+public class BlockAnalyzer {
+    public enum Kind { CLEAN, COPYING, FULL }
+
+    public record Info(Kind kind, boolean escapes, Set<String> captured) {}
+
+    final static Set<String> inlinedSelectors = Set.of(
+        "ifTrue:", "ifFalse:", "ifTrue:ifFalse:", "ifFalse:ifTrue:",
+        "ifNil:", "ifNotNil:", "ifNil:ifNotNil:", "ifNotNil:ifNil:",
+        "and:", "or:", "whileTrue:", "whileFalse:",
+        "to:do:", "to:by:do:", "timesRepeat:"
+    );
+    final static Set<String> inlinedLoopSelectors = Set.of("whileTrue:", "whileFalse:", "whileTrue", "whileFalse", "repeat");
+    final static Set<String> selfNames = Set.of("self", "super", "thisContext");
+
+    private static class Var {
+        final String name;
+        final boolean field;
+        boolean assigned;
+
+        Var(String name, boolean field) {
+            this.name = name;
+            this.field = field;
+        }
+    }
+
+    private static class BlockState {
+        final Set<Var> captured = new LinkedHashSet<>();
+        boolean self;
+        boolean answers;
+        boolean escapes = true;
+    }
+
+    private static class Scope {
+        final Scope parent;
+        final BlockState block;
+        final Map<String, Var> vars = new HashMap<>();
+
+        Scope(Scope parent, BlockState block) {
+            this.parent = parent;
+            this.block = block;
+        }
+
+        void declare(String name, boolean field) {
+            vars.put(name, new Var(name, field));
+        }
+
+        // Temps are visible throughout their body, so declare them before walking it.
+        void declareTemps(List<AST.Stmt> statements) {
+            for(AST.Stmt stmt : statements) {
+                if(stmt instanceof AST.TempDecl decl) declare(decl.name().name(), false);
+            }
+        }
+    }
+
+    private final Map<AST.Block, BlockState> blocks = new IdentityHashMap<>();
+
+    // References
+    private void reference(Scope scope, String name, boolean assign) {
+        if(selfNames.contains(name)) {
+            markSelf(scope);
+            return;
+        }
+        List<BlockState> crossed = new ArrayList<>();
+        for(Scope s = scope; s != null; s = s.parent) {
+            Var var = s.vars.get(name);
+            if(var != null) {
+                if(assign) var.assigned = true;
+                for(BlockState block : crossed) {
+                    if(var.field) block.self = true;
+                    else block.captured.add(var);
+                }
+                return;
+            }
+            if(s.block != null) crossed.add(s.block);
+        }
+        // Unresolved names are globals and are not captured.
+    }
+
+    private void markSelf(Scope scope) {
+        for(Scope s = scope; s != null; s = s.parent) {
+            if(s.block != null) s.block.self = true;
+        }
+    }
+
+    private void markAnswer(Scope scope) {
+        for(Scope s = scope; s != null; s = s.parent) {
+            if(s.block != null) s.block.answers = true;
+        }
+    }
+
+    private void inline(AST.Expr expr) {
+        if(expr instanceof AST.Block block) {
+            blocks.computeIfAbsent(block, b -> new BlockState()).escapes = false;
+        }
+    }
+
+    // Walkers
+    private void block(Scope scope, AST.Block block) {
+        BlockState state = blocks.computeIfAbsent(block, b -> new BlockState());
+        Scope inner = new Scope(scope, state);
+        if(block.args() != null) {
+            for(AST.Identifier arg : block.args()) inner.declare(arg.name(), false);
+        }
+        inner.declareTemps(block.statements());
+        statements(inner, block.statements());
+    }
+
+    private void message(Scope scope, AST.Message message) {
+        if(message instanceof AST.BinaryMessage binary) {
+            expression(scope, binary.argument());
+        } else if(message instanceof AST.KeywordMessage keyword) {
+            for(AST.Expr arg : keyword.arguments().values()) expression(scope, arg);
+        }
+    }
+
+    private void expression(Scope scope, AST.Expr expr) {
+        if(expr instanceof AST.Identifier id) {
+            reference(scope, id.name(), false);
+        } else if(expr instanceof AST.Block block) {
+            block(scope, block);
+        } else if(expr instanceof AST.NestedExpr nested) {
+            expression(scope, nested.expr());
+        } else if(expr instanceof AST.Array array) {
+            for(AST.Expr value : array.values()) expression(scope, value);
+        } else if(expr instanceof AST.Chain chain) {
+            for(AST.Expr value : chain.values()) expression(scope, value);
+        } else if(expr instanceof AST.UnaryExpression unary) {
+            if(inlinedLoopSelectors.contains(unary.messages().get(0).name())) inline(unary.receiver());
+            expression(scope, unary.receiver());
+        } else if(expr instanceof AST.BinaryExpression binary) {
+            expression(scope, binary.receiver());
+            for(AST.BinaryMessage message : binary.message()) message(scope, message);
+        } else if(expr instanceof AST.KeywordExpression keyword) {
+            String selector = keyword.message().name();
+            if(inlinedSelectors.contains(selector)) {
+                if(inlinedLoopSelectors.contains(selector)) inline(keyword.receiver());
+                for(AST.Expr arg : keyword.message().arguments().values()) inline(arg);
+            }
+            expression(scope, keyword.receiver());
+            message(scope, keyword.message());
+        } else if(expr instanceof AST.Cascade cascade) {
+            expression(scope, cascade.primary());
+            for(AST.Message message : cascade.messages()) message(scope, message);
+        }
+    }
+
+    private void statement(Scope scope, AST.Stmt stmt) {
+        if(stmt instanceof AST.Expr expr) {
+            expression(scope, expr);
+        } else if(stmt instanceof AST.Assignment assignment) {
+            expression(scope, assignment.value());
+            reference(scope, assignment.name().name(), true);
+        } else if(stmt instanceof AST.TempDecl decl) {
+            expression(scope, decl.value());
+        } else if(stmt instanceof AST.Answer answer) {
+            expression(scope, answer.value());
+            markAnswer(scope);
+        } else if(stmt instanceof AST.ClassDef classDef) {
+            members(scope, classDef.members());
+        } else if(stmt instanceof AST.TraitDef traitDef) {
+            members(scope, traitDef.members());
+        }
+    }
+
+    private void statements(Scope scope, List<AST.Stmt> statements) {
+        for(AST.Stmt stmt : statements) statement(scope, stmt);
+    }
+
+    private void members(Scope scope, List<AST.Member> members) {
+        Scope classScope = new Scope(scope, null);
+        for(AST.Member member : members) {
+            if(member instanceof AST.Field field) classScope.declare(field.name(), true);
+        }
+        for(AST.Member member : members) {
+            if(member instanceof AST.Field field) {
+                expression(classScope, field.value());
+            } else if(member instanceof AST.Method method) {
+                Scope methodScope = new Scope(classScope, null);
+                AST.Signature sig = method.signature();
+                if(sig instanceof AST.BinarySignature binary) {
+                    methodScope.declare(binary.argument().name(), false);
+                } else if(sig instanceof AST.KeywordSignature keyword) {
+                    for(AST.Identifier arg : keyword.arguments().values()) methodScope.declare(arg.name(), false);
+                }
+                methodScope.declareTemps(method.statements());
+                statements(methodScope, method.statements());
+            }
+        }
+    }
+
+    private static Info classify(BlockState state) {
+        Set<String> captured = new LinkedHashSet<>();
+        boolean shared = false;
+        for(Var var : state.captured) {
+            captured.add(var.name);
+            shared |= var.assigned;
+        }
+        if(state.self) captured.add("self");
+
+        Kind kind;
+        if(state.answers || shared) kind = Kind.FULL;
+        else if(!captured.isEmpty()) kind = Kind.COPYING;
+        else kind = Kind.CLEAN;
+        return new Info(kind, state.escapes, captured);
+    }
+
+    public static Map<AST.Block, Info> analyze(AST.Program program) {
+        BlockAnalyzer analyzer = new BlockAnalyzer();
+        Scope top = new Scope(null, null);
+        top.declareTemps(program.statements());
+        analyzer.statements(top, program.statements());
+
+        Map<AST.Block, Info> result = new IdentityHashMap<>();
+        analyzer.blocks.forEach((block, state) -> result.put(block, classify(state)));
+        return result;
+    }
+}
@@ -0,0 +1,1234 @@
+package com.smallos;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Tree-walking evaluator for programs and the methods their classes define.
+// SmallInteger and Float values stay unboxed: eval answers the SMALL or FLOAT tag and leaves the
+// payload in `bits`, and frames keep a parallel long[] beside their object slots. Binary sends with
+// a Numbers opcode run inline on unboxed operands (overflow promotes to LargeInteger, mixed operands
+// are coerced) and only go through method lookup once the program redefines that selector for the
+// receiver's class. Literal blocks passed to control selectors run in the enclosing frame, so a
+// numeric loop allocates nothing per iteration.
+public class Interpreter {
+    private static final Object SMALL = new Object();
+    private static final Object FLOAT = new Object();
+    private static final Object[] NO_ARGS = {};
+
+    public static class ClassInfo {
+        final String name;
+        ClassInfo parent;
+        final Map<String, AST.Method> methods = new HashMap<>();
+        final Map<String, AST.Method> statics = new HashMap<>();
+
+        ClassInfo(String name, ClassInfo parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        boolean inheritsFrom(ClassInfo other) {
+            for(ClassInfo c = this; c != null; c = c.parent) {
+                if(c == other) return true;
+            }
+            return false;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    record Closure(AST.Block block, Frame outer) {}
+    public record Symbol(String name) {
+        @Override
+        public String toString() {
+            return "#" + name;
+        }
+    }
+
+    static class Frame {
+        final Object[] values;
+        final long[] bits;
+        final Object self;
+        final ClassInfo owner; // class the running method was found in, for super sends
+        final Frame outer;     // defining frame of a block closure
+        final Frame home;      // method frame that ^ answers from
+        boolean answered;
+        Object answer;
+        long answerBits;
+
+        Frame(int size, Object self, ClassInfo owner) {
+            this.values = new Object[size];
+            this.bits = new long[size];
+            this.self = self;
+            this.owner = owner;
+            this.outer = null;
+            this.home = this;
+        }
+
+        Frame(int size, Frame outer) {
+            this.values = new Object[size];
+            this.bits = new long[size];
+            this.self = outer.self;
+            this.owner = outer.owner;
+            this.outer = outer;
+            this.home = outer.home;
+        }
+    }
+
+    // ^ from inside a block closure unwinds to the frame of the method that created it.
+    private static class NonLocalReturn extends RuntimeException {
+        final Frame home;
+        final Object value;
+
+        NonLocalReturn(Frame home, Object value) {
+            super(null, null, false, false);
+            this.home = home;
+            this.value = value;
+        }
+    }
+
+    // Resolution scopes: one Unit per frame, one Scope per body. Inlined blocks share their parent's Unit.
+    private static class Unit {
+        int size;
+    }
+
+    private static class Scope {
+        final Scope parent;
+        final Unit unit;
+        final Map<String, Integer> vars = new HashMap<>();
+
+        Scope(Scope parent, Unit unit) {
+            this.parent = parent;
+            this.unit = unit;
+        }
+    }
+
+    private final Map<String, ClassInfo> classes = new HashMap<>();
+    private final Map<String, List<AST.Method>> traits = new HashMap<>();
+    private final Map<String, Object> globals = new HashMap<>();
+    private final ClassInfo smallInteger, largeInteger, floatClass;
+
+    // Per opcode, the Numbers class bits whose selector the program has redefined.
+    private final int[] redefined = new int[Numbers.OPS];
+
+    // Resolution results, keyed by node identity.
+    private final Map<AST.Node, Integer> slots = new IdentityHashMap<>(); // identifier -> depth << 16 | index
+    private final Map<AST.Node, Integer> sizes = new IdentityHashMap<>(); // program, method or closure block -> frame size
+    private final Map<AST.Node, Object> literals = new IdentityHashMap<>();
+    private final Set<AST.Expr> inlinedSends = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<AST.Answer> unwinding = Collections.newSetFromMap(new IdentityHashMap<>()); // ^ inside an inlined block
+
+    // BlockAnalyzer results: escape analysis drives inlining, and CLEAN blocks share one closure.
+    private final Map<AST.Block, BlockAnalyzer.Info> blocks = new IdentityHashMap<>();
+    private final Map<AST.Block, Closure> cleanClosures = new IdentityHashMap<>();
+    private final Map<AST.Block, Boolean> capturing = new IdentityHashMap<>(); // loop block -> a closure captures its variables
+
+    // Payload of the last SMALL or FLOAT tag.
+    private long bits;
+
+    public Interpreter() {
+        this(Transcript.stdout());
+    }
+
+    public Interpreter(Transcript transcript) {
+        ClassInfo object = builtin("Object", null);
+        ClassInfo magnitude = builtin("Magnitude", object);
+        ClassInfo number = builtin("Number", magnitude);
+        ClassInfo integer = builtin("Integer", number);
+        smallInteger = builtin("SmallInteger", integer);
+        largeInteger = builtin("LargeInteger", integer);
+        floatClass = builtin("Float", number);
+        ClassInfo bool = builtin("Boolean", object);
+        builtin("True", bool);
+        builtin("False", bool);
+        builtin("UndefinedObject", object);
+        ClassInfo string = builtin("String", object);
+        builtin("Symbol", string);
+        builtin("Array", object);
+        builtin("BlockClosure", object);
+        builtin("TranscriptStream", object);
+        globals.put("Transcript", transcript);
+    }
+
+    private ClassInfo builtin(String name, ClassInfo parent) {
+        ClassInfo cls = new ClassInfo(name, parent);
+        classes.put(name, cls);
+        globals.put(name, cls);
+        return cls;
+    }
+
+    // Runs a program's statements in order and answers the value of the last one.
+    public Object run(AST.Program program) {
+        blocks.putAll(BlockAnalyzer.analyze(program));
+        Unit unit = new Unit();
+        Scope scope = new Scope(null, unit);
+        declareTemps(scope, program.statements());
+        resolveStatements(scope, program.statements());
+
+        Frame frame = new Frame(unit.size, null, null);
+        try {
+            Object result = statements(frame, program.statements());
+            if(frame.answered) return box(frame.answer, frame.answerBits);
+            return box(result);
+        } catch(NonLocalReturn r) {
+            if(r.home != frame) throw new RuntimeError("Block cannot return: its method has already answered.");
+            return r.value;
+        }
+    }
+
+    // Tags
+    private Object unbox(Object value) {
+        if(value instanceof Long small) {
+            bits = small;
+            return SMALL;
+        } else if(value instanceof Double real) {
+            bits = Double.doubleToRawLongBits(real);
+            return FLOAT;
+        }
+        return value;
+    }
+
+    private static Object box(Object tag, long raw) {
+        if(tag == SMALL) return raw;
+        else if(tag == FLOAT) return Double.longBitsToDouble(raw);
+        return tag;
+    }
+
+    private Object box(Object tag) {
+        return box(tag, bits);
+    }
+
+    // Resolution
+    private void declare(Scope scope, AST.Identifier id) {
+        int index = scope.unit.size++;
+        scope.vars.put(id.name(), index);
+        slots.put(id, index);
+    }
+
+    // Temps are visible throughout their body, so declare them before walking it.
+    private void declareTemps(Scope scope, List<AST.Stmt> statements) {
+        for(AST.Stmt stmt : statements) {
+            if(stmt instanceof AST.TempDecl decl) declare(scope, decl.name());
+        }
+    }
+
+    private void bind(Scope scope, AST.Identifier id) {
+        int depth = 0;
+        for(Scope s = scope; s != null; s = s.parent) {
+            Integer index = s.vars.get(id.name());
+            if(index != null) {
+                slots.put(id, depth << 16 | index);
+                return;
+            }
+            if(s.parent != null && s.parent.unit != s.unit) depth++;
+        }
+        // Unresolved names are self, super or globals.
+    }
+
+    private static int argCount(AST.Block block) {
+        return block.args() == null ? 0 : block.args().size();
+    }
+
+    // A literal block the analysis found non-escaping, taking between min and max arguments.
+    private boolean inlined(AST.Expr expr, int min, int max) {
+        if(!(expr instanceof AST.Block block)) return false;
+        BlockAnalyzer.Info info = blocks.get(block);
+        return info != null && !info.escapes() && argCount(block) >= min && argCount(block) <= max;
+    }
+
+    private static boolean repeats(String selector) {
+        switch(selector) {
+            case "to:do:":
+            case "to:by:do:":
+            case "timesRepeat:":
+                return true;
+            default:
+                return BlockAnalyzer.inlinedLoopSelectors.contains(selector);
+        }
+    }
+
+    // Selectors come from BlockAnalyzer's table; every block position must hold an inlinable literal.
+    private boolean inlinable(AST.KeywordExpression expr) {
+        String selector = expr.message().name();
+        if(!BlockAnalyzer.inlinedSelectors.contains(selector)) return false;
+        if(BlockAnalyzer.inlinedLoopSelectors.contains(selector) && !inlined(expr.receiver(), 0, 0)) return false;
+        if(repeats(selector) && (captured(expr.receiver()) || expr.message().arguments().values().stream().anyMatch(this::captured))) return false;
+        for(Map.Entry<String, AST.Expr> arg : expr.message().arguments().entrySet()) {
+            switch(arg.getKey()) {
+                case "to":
+                case "by":
+                    break;
+                case "do":
+                    if(!inlined(arg.getValue(), 1, 1)) return false;
+                    break;
+                case "ifNotNil":
+                    if(!inlined(arg.getValue(), 0, 1)) return false;
+                    break;
+                default:
+                    if(!inlined(arg.getValue(), 0, 0)) return false;
+            }
+        }
+        return true;
+    }
+
+    // [...] whileTrue, whileFalse and repeat.
+    private boolean inlinable(AST.UnaryExpression expr) {
+        return BlockAnalyzer.inlinedLoopSelectors.contains(expr.messages().get(0).name()) && inlined(expr.receiver(), 0, 0) && !captured(expr.receiver());
+    }
+
+    // An inlined loop keeps its block's variables in one slot of the enclosing frame for every iteration,
+    // so it only runs in place when no closure created inside it captures one of them.
+    private boolean captured(AST.Expr expr) {
+        if(!(expr instanceof AST.Block block)) return false;
+        Boolean known = capturing.get(block);
+        if(known == null) {
+            known = capturesDeclared(block);
+            capturing.put(block, known);
+        }
+        return known;
+    }
+
+    private boolean capturesDeclared(AST.Block block) {
+        Set<String> declared = new HashSet<>();
+        List<AST.Block> closures = new ArrayList<>();
+        collectInline(block, declared, closures);
+        for(AST.Block closure : closures) {
+            BlockAnalyzer.Info info = blocks.get(closure);
+            if(info == null) return true;
+            for(String name : info.captured()) {
+                if(declared.contains(name)) return true;
+            }
+        }
+        return false;
+    }
+
+    // Mirrors resolve: gathers the variables of blocks that run in place and the blocks that become closures.
+    private void collectInline(AST.Expr expr, Set<String> declared, List<AST.Block> closures) {
+        if(!(expr instanceof AST.Block block)) {
+            collect(expr, declared, closures);
+            return;
+        }
+        if(block.args() != null) {
+            for(AST.Identifier arg : block.args()) declared.add(arg.name());
+        }
+        for(AST.Stmt stmt : block.statements()) {
+            if(stmt instanceof AST.Expr value) {
+                collect(value, declared, closures);
+            } else if(stmt instanceof AST.Assignment assignment) {
+                collect(assignment.value(), declared, closures);
+            } else if(stmt instanceof AST.TempDecl decl) {
+                declared.add(decl.name().name());
+                if(decl.value() != null) collect(decl.value(), declared, closures);
+            } else if(stmt instanceof AST.Answer answer) {
+                collect(answer.value(), declared, closures);
+            }
+        }
+    }
+
+    private void collect(AST.Expr expr, Set<String> declared, List<AST.Block> closures) {
+        if(expr instanceof AST.Block block) {
+            closures.add(block);
+        } else if(expr instanceof AST.NestedExpr nested) {
+            collect(nested.expr(), declared, closures);
+        } else if(expr instanceof AST.Array array) {
+            for(AST.Expr value : array.values()) collect(value, declared, closures);
+        } else if(expr instanceof AST.UnaryExpression unary) {
+            if(inlinable(unary)) collectInline(unary.receiver(), declared, closures);
+            else collect(unary.receiver(), declared, closures);
+        } else if(expr instanceof AST.BinaryExpression binary) {
+            collect(binary.receiver(), declared, closures);
+            for(AST.BinaryMessage message : binary.message()) collect(message.argument(), declared, closures);
+        } else if(expr instanceof AST.KeywordExpression keyword) {
+            boolean inline = inlinable(keyword);
+            if(inline) collectInline(keyword.receiver(), declared, closures);
+            else collect(keyword.receiver(), declared, closures);
+            for(AST.Expr arg : keyword.message().arguments().values()) {
+                if(inline) collectInline(arg, declared, closures);
+                else collect(arg, declared, closures);
+            }
+        } else if(expr instanceof AST.Cascade cascade) {
+            AST.Expr primary = cascade.primary();
+            if(primary instanceof AST.KeywordExpression keyword) {
+                collect(keyword.receiver(), declared, closures);
+                for(AST.Expr arg : keyword.message().arguments().values()) collect(arg, declared, closures);
+            } else if(primary instanceof AST.UnaryExpression unary) {
+                collect(unary.receiver(), declared, closures);
+            } else {
+                collect(primary, declared, closures);
+            }
+            for(AST.Message message : cascade.messages()) {
+                if(message instanceof AST.BinaryMessage binary) {
+                    collect(binary.argument(), declared, closures);
+                } else if(message instanceof AST.KeywordMessage keyword) {
+                    for(AST.Expr arg : keyword.arguments().values()) collect(arg, declared, closures);
+                }
+            }
+        }
+    }
+
+    private void resolveBody(Scope scope, AST.Block block) {
+        if(block.args() != null) {
+            for(AST.Identifier arg : block.args()) declare(scope, arg);
+        }
+        declareTemps(scope, block.statements());
+        resolveStatements(scope, block.statements());
+    }
+
+    private void resolveInline(Scope scope, AST.Expr expr) {
+        if(expr instanceof AST.Block block) resolveBody(new Scope(scope, scope.unit), block);
+        else resolve(scope, expr);
+    }
+
+    private void resolveMessage(Scope scope, AST.Message message) {
+        if(message instanceof AST.BinaryMessage binary) {
+            resolve(scope, binary.argument());
+        } else if(message instanceof AST.KeywordMessage keyword) {
+            for(AST.Expr arg : keyword.arguments().values()) resolve(scope, arg);
+        }
+    }
+
+    private void resolve(Scope scope, AST.Expr expr) {
+        if(expr instanceof AST.Identifier id) {
+            bind(scope, id);
+        } else if(expr instanceof AST.Str str) {
+            String text = str.value();
+            literals.put(str, text.substring(1, text.length() - 1).replace("\"\"", "\""));
+        } else if(expr instanceof AST.Symbol symbol) {
+            literals.put(symbol, new Symbol(symbol.value().substring(1)));
+        } else if(expr instanceof AST.Block block) {
+            Unit unit = new Unit();
+            resolveBody(new Scope(scope, unit), block);
+            sizes.put(block, unit.size);
+            BlockAnalyzer.Info info = blocks.get(block);
+            if(info != null && info.kind() == BlockAnalyzer.Kind.CLEAN) cleanClosures.put(block, new Closure(block, null));
+        } else if(expr instanceof AST.NestedExpr nested) {
+            resolve(scope, nested.expr());
+        } else if(expr instanceof AST.Array array) {
+            for(AST.Expr value : array.values()) resolve(scope, value);
+        } else if(expr instanceof AST.UnaryExpression unary) {
+            if(inlinable(unary)) {
+                inlinedSends.add(unary);
+                resolveInline(scope, unary.receiver());
+            } else {
+                resolve(scope, unary.receiver());
+            }
+        } else if(expr instanceof AST.BinaryExpression binary) {
+            resolve(scope, binary.receiver());
+            for(AST.BinaryMessage message : binary.message()) resolveMessage(scope, message);
+        } else if(expr instanceof AST.KeywordExpression keyword) {
+            if(inlinable(keyword)) {
+                inlinedSends.add(keyword);
+                resolveInline(scope, keyword.receiver());
+                for(AST.Expr arg : keyword.message().arguments().values()) resolveInline(scope, arg);
+            } else {
+                resolve(scope, keyword.receiver());
+                resolveMessage(scope, keyword.message());
+            }
+        } else if(expr instanceof AST.Cascade cascade) {
+            // The primary is always a real send, since the cascade needs its receiver as a value.
+            AST.Expr primary = cascade.primary();
+            if(primary instanceof AST.KeywordExpression keyword) {
+                resolve(scope, keyword.receiver());
+                resolveMessage(scope, keyword.message());
+            } else if(primary instanceof AST.UnaryExpression unary) {
+                resolve(scope, unary.receiver());
+            } else {
+                resolve(scope, primary);
+            }
+            for(AST.Message message : cascade.messages()) resolveMessage(scope, message);
+        }
+    }
+
+    private void resolveStatements(Scope scope, List<AST.Stmt> statements) {
+        for(AST.Stmt stmt : statements) {
+            if(stmt instanceof AST.Expr expr) {
+                resolve(scope, expr);
+            } else if(stmt instanceof AST.Assignment assignment) {
+                resolve(scope, assignment.value());
+                bind(scope, assignment.name());
+            } else if(stmt instanceof AST.TempDecl decl) {
+                if(decl.value() != null) resolve(scope, decl.value());
+            } else if(stmt instanceof AST.Answer answer) {
+                resolve(scope, answer.value());
+                if(scope.parent != null && scope.parent.unit == scope.unit) unwinding.add(answer);
+            } else if(stmt instanceof AST.ClassDef classDef) {
+                resolveMembers(classDef.members());
+            } else if(stmt instanceof AST.TraitDef traitDef) {
+                resolveMembers(traitDef.members());
+            }
+        }
+    }
+
+    // Methods only see their own arguments and temps; everything else is a global.
+    private void resolveMembers(List<AST.Member> members) {
+        for(AST.Member member : members) {
+            if(!(member instanceof AST.Method method)) continue;
+            Unit unit = new Unit();
+            Scope scope = new Scope(null, unit);
+            AST.Signature sig = method.signature();
+            if(sig instanceof AST.BinarySignature binary) {
+                declare(scope, binary.argument());
+            } else if(sig instanceof AST.KeywordSignature keyword) {
+                for(AST.Identifier arg : keyword.arguments().values()) declare(scope, arg);
+            }
+            declareTemps(scope, method.statements());
+            resolveStatements(scope, method.statements());
+            sizes.put(method, unit.size);
+        }
+    }
+
+    // Classes
+    private static String selector(AST.Signature sig) {
+        if(sig instanceof AST.UnarySignature unary) return unary.name();
+        else if(sig instanceof AST.BinarySignature binary) return binary.name();
+        return ((AST.KeywordSignature) sig).name();
+    }
+
+    private ClassInfo classNamed(String name) {
+        ClassInfo cls = classes.get(name);
+        if(cls == null) throw new RuntimeError("Undefined class " + name + ".");
+        return cls;
+    }
+
+    private void define(ClassInfo cls, AST.Method method) {
+        String selector = selector(method.signature());
+        if(method.isStatic()) {
+            cls.statics.put(selector, method);
+            return;
+        }
+        cls.methods.put(selector, method);
+
+        // The numeric primitives are methods of the numeric classes themselves, so only redefining
+        // arithmetic on one of those turns its fast path off; superclass methods stay hidden.
+        int op = Numbers.opcode(selector);
+        if(op == Numbers.NONE) return;
+        if(cls == smallInteger) redefined[op] |= Numbers.SMALL_INTEGER;
+        if(cls == largeInteger) redefined[op] |= Numbers.LARGE_INTEGER;
+        if(cls == floatClass) redefined[op] |= Numbers.FLOAT;
+    }
+
+    private boolean isNumberClass(ClassInfo cls) {
+        return cls == smallInteger || cls == largeInteger || cls == floatClass;
+    }
+
+    // Selectors primitive answers for numbers.
+    private static boolean numberPrimitive(String selector) {
+        switch(selector) {
+            case "negated":
+            case "abs":
+            case "timesRepeat:":
+            case "to:do:":
+            case "to:by:do:":
+                return true;
+            default:
+                return Numbers.opcode(selector) != Numbers.NONE;
+        }
+    }
+
+    private void defineClass(AST.ClassDef def) {
+        String name = def.name().name();
+        ClassInfo cls = classes.get(name);
+        if(cls == null) {
+            ClassInfo parent = classNamed(def.parent() == null ? "Object" : def.parent().name());
+            cls = new ClassInfo(name, parent);
+            classes.put(name, cls);
+            globals.put(name, cls);
+        }
+        for(AST.Member member : def.members()) {
+            if(member instanceof AST.Method method) define(cls, method);
+            else if(member instanceof AST.Field) throw new RuntimeError("Fields are not supported by the interpreter yet (in class " + name + ").");
+            else if(member instanceof AST.Error error) throw new RuntimeError(error.message());
+        }
+        if(def.traits() == null) return;
+        for(AST.Identifier trait : def.traits()) {
+            List<AST.Method> methods = traits.get(trait.name());
+            if(methods == null) throw new RuntimeError("Undefined trait " + trait.name() + ".");
+            for(AST.Method method : methods) {
+                Map<String, AST.Method> table = method.isStatic() ? cls.statics : cls.methods;
+                if(!table.containsKey(selector(method.signature()))) define(cls, method);
+            }
+        }
+    }
+
+    private void defineTrait(AST.TraitDef def) {
+        List<AST.Method> methods = new ArrayList<>();
+        for(AST.Member member : def.members()) {
+            if(member instanceof AST.Method method) methods.add(method);
+            else if(member instanceof AST.Error error) throw new RuntimeError(error.message());
+        }
+        if(def.parent() != null) {
+            List<AST.Method> inherited = traits.get(def.parent().name());
+            if(inherited == null) throw new RuntimeError("Undefined trait " + def.parent().name() + ".");
+            methods.addAll(inherited);
+        }
+        traits.put(def.name().name(), methods);
+    }
+
+    private ClassInfo classOf(Object value) {
+        if(value instanceof Long) return smallInteger;
+        else if(value instanceof BigInteger) return largeInteger;
+        else if(value instanceof Double) return floatClass;
+        else if(value instanceof ClassInfo cls) return cls;
+        else if(value == null) return classes.get("UndefinedObject");
+        else if(value instanceof Boolean b) return classes.get(b ? "True" : "False");
+        else if(value instanceof String) return classes.get("String");
+        else if(value instanceof Symbol) return classes.get("Symbol");
+        else if(value instanceof Object[]) return classes.get("Array");
+        else if(value instanceof Closure) return classes.get("BlockClosure");
+        else if(value instanceof Transcript) return classes.get("TranscriptStream");
+        return classes.get("Object");
+    }
+
+    // Statements
+    private Frame frame(Frame f, int slot) {
+        for(int depth = slot >>> 16; depth > 0; depth--) f = f.outer;
+        return f;
+    }
+
+    private Object load(Frame f, AST.Identifier id) {
+        Integer slot = slots.get(id);
+        if(slot != null) {
+            Frame target = frame(f, slot);
+            int index = slot & 0xFFFF;
+            bits = target.bits[index];
+            return target.values[index];
+        }
+        String name = id.name();
+        if(name.equals("self") || name.equals("super")) return unbox(f.self);
+        if(!globals.containsKey(name)) throw new RuntimeError("Undefined variable " + name + ".");
+        return unbox(globals.get(name));
+    }
+
+    // Stores a tag, with the payload still in bits.
+    private void store(Frame f, AST.Identifier id, Object tag) {
+        Integer slot = slots.get(id);
+        if(slot == null) {
+            globals.put(id.name(), box(tag));
+            return;
+        }
+        Frame target = frame(f, slot);
+        int index = slot & 0xFFFF;
+        target.values[index] = tag;
+        target.bits[index] = bits;
+    }
+
+    private void put(Frame f, int index, Object value) {
+        f.values[index] = unbox(value);
+        f.bits[index] = bits;
+    }
+
+    // A ^ at the top of a body stops its statements; anywhere else the enclosing expression must not
+    // run on, so it unwinds to the home frame.
+    private void answer(Frame f, Object tag, boolean unwinds) {
+        if(f.home != f || unwinds) throw new NonLocalReturn(f.home, box(tag));
+        f.answered = true;
+        f.answer = tag;
+        f.answerBits = bits;
+    }
+
+    private Object statement(Frame f, AST.Stmt stmt) {
+        if(stmt instanceof AST.Expr expr) {
+            return eval(f, expr);
+        } else if(stmt instanceof AST.Assignment assignment) {
+            Object value = eval(f, assignment.value());
+            store(f, assignment.name(), value);
+            return value;
+        } else if(stmt instanceof AST.TempDecl decl) {
+            Object value = decl.value() == null ? null : eval(f, decl.value());
+            store(f, decl.name(), value);
+            return value;
+        } else if(stmt instanceof AST.Answer answer) {
+            Object value = eval(f, answer.value());
+            answer(f, value, unwinding.contains(answer));
+            return value;
+        } else if(stmt instanceof AST.ClassDef classDef) {
+            defineClass(classDef);
+            return null;
+        } else if(stmt instanceof AST.TraitDef traitDef) {
+            defineTrait(traitDef);
+            return null;
+        } else if(stmt instanceof AST.Pragma) {
+            return null;
+        } else if(stmt instanceof AST.Error error) {
+            throw new RuntimeError(error.message());
+        }
+        throw new RuntimeError("Unsupported statement " + stmt + ".");
+    }
+
+    // Runs statements in order and answers the tag of the last value, stopping early after a ^.
+    private Object statements(Frame f, List<AST.Stmt> statements) {
+        Object result = null;
+        for(int i = 0; i < statements.size(); i++) {
+            result = statement(f, statements.get(i));
+            if(f.answered) return result;
+        }
+        return result;
+    }
+
+    // Expressions
+    private Object eval(Frame f, AST.Expr expr) {
+        if(expr instanceof AST.Identifier id) {
+            return load(f, id);
+        } else if(expr instanceof AST.Num num) {
+            return unbox(num.value());
+        } else if(expr instanceof AST.BinaryExpression binary) {
+            boolean toSuper = isSuper(binary.receiver());
+            Object tag = eval(f, binary.receiver());
+            List<AST.BinaryMessage> messages = binary.message();
+            for(int i = 0; i < messages.size(); i++) {
+                tag = binary(f, tag, messages.get(i), toSuper && i == 0);
+            }
+            return tag;
+        } else if(expr instanceof AST.KeywordExpression keyword) {
+            if(inlinedSends.contains(keyword)) return control(f, keyword);
+            boolean toSuper = isSuper(keyword.receiver());
+            Object receiver = box(eval(f, keyword.receiver()));
+            return send(f, receiver, keyword.message().name(), arguments(f, keyword.message()), toSuper);
+        } else if(expr instanceof AST.UnaryExpression unary) {
+            boolean inline = inlinedSends.contains(unary);
+            boolean toSuper = isSuper(unary.receiver());
+            Object tag = inline ? repeat(f, unary) : eval(f, unary.receiver());
+            List<AST.UnaryMessage> messages = unary.messages();
+            for(int i = inline ? 1 : 0; i < messages.size(); i++) {
+                tag = send(f, box(tag), messages.get(i).name(), NO_ARGS, toSuper && i == 0);
+            }
+            return tag;
+        } else if(expr instanceof AST.NestedExpr nested) {
+            return eval(f, nested.expr());
+        } else if(expr instanceof AST.Str || expr instanceof AST.Symbol) {
+            return literals.get(expr);
+        } else if(expr instanceof AST.Bool bool) {
+            return bool.value() ? Boolean.TRUE : Boolean.FALSE;
+        } else if(expr instanceof AST.Nil) {
+            return null;
+        } else if(expr instanceof AST.Block block) {
+            Closure clean = cleanClosures.get(block);
+            return clean != null ? clean : new Closure(block, f);
+        } else if(expr instanceof AST.Array array) {
+            Object[] values = new Object[array.values().size()];
+            for(int i = 0; i < values.length; i++) values[i] = box(eval(f, array.values().get(i)));
+            return values;
+        } else if(expr instanceof AST.Cascade cascade) {
+            return cascade(f, cascade);
+        }
+        throw new RuntimeError("Unsupported expression " + expr + ".");
+    }
+
+    private boolean isSuper(AST.Expr expr) {
+        return expr instanceof AST.Identifier id && id.name().equals("super") && !slots.containsKey(id);
+    }
+
+    private Object[] arguments(Frame f, AST.KeywordMessage message) {
+        String[] parts = message.name().split(":");
+        Object[] args = new Object[parts.length];
+        for(int i = 0; i < parts.length; i++) args[i] = box(eval(f, message.arguments().get(parts[i])));
+        return args;
+    }
+
+    private Object cascade(Frame f, AST.Cascade cascade) {
+        AST.Expr primary = cascade.primary();
+        Object receiver;
+        Object tag;
+        if(primary instanceof AST.KeywordExpression keyword) {
+            receiver = box(eval(f, keyword.receiver()));
+            tag = message(f, receiver, keyword.message());
+        } else if(primary instanceof AST.BinaryExpression binary) {
+            List<AST.BinaryMessage> messages = binary.message();
+            Object last = eval(f, binary.receiver());
+            for(int i = 0; i < messages.size() - 1; i++) last = binary(f, last, messages.get(i), false);
+            receiver = box(last);
+            tag = message(f, receiver, messages.get(messages.size() - 1));
+        } else if(primary instanceof AST.UnaryExpression unary) {
+            List<AST.UnaryMessage> messages = unary.messages();
+            Object last = eval(f, unary.receiver());
+            for(int i = 0; i < messages.size() - 1; i++) last = send(f, box(last), messages.get(i).name(), NO_ARGS, false);
+            receiver = box(last);
+            tag = message(f, receiver, messages.get(messages.size() - 1));
+        } else {
+            receiver = box(eval(f, primary));
+            tag = unbox(receiver);
+        }
+        for(AST.Message message : cascade.messages()) tag = message(f, receiver, message);
+        return tag;
+    }
+
+    private Object message(Frame f, Object receiver, AST.Message message) {
+        if(message instanceof AST.BinaryMessage binary) {
+            return binary(f, unbox(receiver), binary, false);
+        } else if(message instanceof AST.KeywordMessage keyword) {
+            return send(f, receiver, keyword.name(), arguments(f, keyword), false);
+        }
+        return send(f, receiver, ((AST.UnaryMessage) message).name(), NO_ARGS, false);
+    }
+
+    // Sends
+    private Object binary(Frame f, Object tag, AST.BinaryMessage message, boolean toSuper) {
+        long a = bits;
+        Object arg = eval(f, message.argument());
+        long b = bits;
+        int op = Numbers.opcode(message.name());
+        if(op != Numbers.NONE && !toSuper) {
+            int redefined = this.redefined[op];
+            if(tag == SMALL && (redefined & Numbers.SMALL_INTEGER) == 0) {
+                if(arg == SMALL) return small(op, a, b);
+                if(arg == FLOAT) return real(op, a, Double.longBitsToDouble(b));
+            } else if(tag == FLOAT && (redefined & Numbers.FLOAT) == 0) {
+                if(arg == FLOAT) return real(op, Double.longBitsToDouble(a), Double.longBitsToDouble(b));
+                if(arg == SMALL) return real(op, Double.longBitsToDouble(a), b);
+            }
+            // Boxed numeric pairs (any LargeInteger) skip lookup too.
+            Object receiver = box(tag, a);
+            Object argument = box(arg, b);
+            int bit = Numbers.classBit(receiver);
+            if(bit != 0 && (redefined & bit) == 0 && Numbers.isNumber(argument)) {
+                return arithmetic(op, receiver, argument);
+            }
+            return send(f, receiver, message.name(), new Object[] {argument}, false);
+        }
+        return send(f, box(tag, a), message.name(), new Object[] {box(arg, b)}, toSuper);
+    }
+
+    private Object small(int op, long a, long b) {
+        try {
+            switch(op) {
+                case Numbers.ADD:
+                    bits = Math.addExact(a, b);
+                    return SMALL;
+                case Numbers.SUB:
+                    bits = Math.subtractExact(a, b);
+                    return SMALL;
+                case Numbers.MUL:
+                    bits = Math.multiplyExact(a, b);
+                    return SMALL;
+                case Numbers.DIV:
+                    if(b == 0) break;
+                    if(b == -1) {
+                        bits = Math.negateExact(a);
+                        return SMALL;
+                    }
+                    if(a % b == 0) {
+                        bits = a / b;
+                        return SMALL;
+                    }
+                    bits = Double.doubleToRawLongBits((double) a / b);
+                    return FLOAT;
+                default:
+                    return Numbers.compare(op, a, b) ? Boolean.TRUE : Boolean.FALSE;
+            }
+        } catch(ArithmeticException overflow) {
+            // Promoted to LargeInteger below.
+        }
+        return arithmetic(op, a, b);
+    }
+
+    private Object real(int op, double x, double y) {
+        if(Numbers.isComparison(op)) return Numbers.compare(op, x, y) ? Boolean.TRUE : Boolean.FALSE;
+        try {
+            bits = Double.doubleToRawLongBits(Numbers.real(op, x, y));
+        } catch(ArithmeticException e) {
+            throw new RuntimeError(e.getMessage());
+        }
+        return FLOAT;
+    }
+
+    // Generic numeric path; ZeroDivide surfaces as a RuntimeError like any other Smalltalk error.
+    private Object arithmetic(int op, Object a, Object b) {
+        try {
+            return unbox(Numbers.arithmetic(op, a, b));
+        } catch(ArithmeticException e) {
+            throw new RuntimeError(e.getMessage());
+        }
+    }
+
+    // Full send: user methods first, along the receiver's class chain, then primitives. Number
+    // primitives sit on the numeric classes, ahead of anything they inherit.
+    private Object send(Frame f, Object receiver, String selector, Object[] args, boolean toSuper) {
+        boolean meta = receiver instanceof ClassInfo;
+        ClassInfo start;
+        if(toSuper) {
+            if(f.owner == null) throw new RuntimeError("super used outside a method.");
+            start = f.owner.parent;
+        } else {
+            start = classOf(receiver);
+        }
+        for(ClassInfo cls = start; cls != null; cls = cls.parent) {
+            AST.Method method = (meta ? cls.statics : cls.methods).get(selector);
+            if(method != null) return invoke(cls, method, receiver, args);
+            if(!meta && isNumberClass(cls) && numberPrimitive(selector)) return primitive(receiver, selector, args);
+        }
+        return primitive(receiver, selector, args);
+    }
+
+    private Object invoke(ClassInfo owner, AST.Method method, Object self, Object[] args) {
+        Frame frame = new Frame(sizes.get(method), self, owner);
+        AST.Signature sig = method.signature();
+        if(sig instanceof AST.BinarySignature binary) {
+            put(frame, slots.get(binary.argument()), args[0]);
+        } else if(sig instanceof AST.KeywordSignature keyword) {
+            String[] parts = keyword.name().split(":");
+            for(int i = 0; i < parts.length; i++) put(frame, slots.get(keyword.arguments().get(parts[i])), args[i]);
+        }
+        try {
+            statements(frame, method.statements());
+        } catch(NonLocalReturn r) {
+            if(r.home != frame) throw r;
+            return unbox(r.value);
+        }
+        if(frame.answered) {
+            bits = frame.answerBits;
+            return frame.answer;
+        }
+        // Methods without ^ answer self.
+        return unbox(self);
+    }
+
+    private Object call(Closure closure, Object... args) {
+        AST.Block block = closure.block();
+        if(args.length != argCount(block)) {
+            throw new RuntimeError("Block takes " + argCount(block) + " arguments but was given " + args.length + ".");
+        }
+        // Clean closures are shared and have no defining frame.
+        Frame frame = closure.outer() == null ? new Frame(sizes.get(block), null, null) : new Frame(sizes.get(block), closure.outer());
+        for(int i = 0; i < args.length; i++) put(frame, slots.get(block.args().get(i)), args[i]);
+        return statements(frame, block.statements());
+    }
+
+    // Answers a boxed value: closures are called, anything else is itself.
+    private Object value(Object value) {
+        if(value instanceof Closure closure) return box(call(closure));
+        return value;
+    }
+
+    // ifNotNil: blocks may take the receiver as their argument.
+    private Object value(Object value, Object receiver) {
+        if(value instanceof Closure closure && argCount(closure.block()) == 1) return box(call(closure, receiver));
+        return value(value);
+    }
+
+    // Takes a tag whose payload is still in bits, so the error names the actual number.
+    private Object bool(Object tag) {
+        if(tag instanceof Boolean) return tag;
+        throw new RuntimeError(print(box(tag)) + " is not a Boolean.");
+    }
+
+    // Argument key of a one-part selector, without allocating.
+    private static String keyword(String selector) {
+        switch(selector) {
+            case "ifTrue:": return "ifTrue";
+            case "ifFalse:": return "ifFalse";
+            case "and:": return "and";
+            case "or:": return "or";
+            case "whileTrue:": return "whileTrue";
+            case "whileFalse:": return "whileFalse";
+            case "ifNil:": return "ifNil";
+            case "ifNotNil:": return "ifNotNil";
+            case "timesRepeat:": return "timesRepeat";
+            default: return selector.substring(0, selector.length() - 1);
+        }
+    }
+
+    private Object inline(Frame f, AST.Expr block) {
+        return statements(f, ((AST.Block) block).statements());
+    }
+
+    // Inlined control selectors. Their blocks live in this frame, so every receiver is handled here.
+    private Object control(Frame f, AST.KeywordExpression expr) {
+        AST.KeywordMessage message = expr.message();
+        Map<String, AST.Expr> args = message.arguments();
+        String selector = message.name();
+        switch(selector) {
+            case "whileTrue:":
+            case "whileFalse:": {
+                Boolean until = selector.equals("whileTrue:") ? Boolean.FALSE : Boolean.TRUE;
+                List<AST.Stmt> test = ((AST.Block) expr.receiver()).statements();
+                List<AST.Stmt> body = ((AST.Block) args.get(keyword(selector))).statements();
+                while(true) {
+                    if(bool(statements(f, test)) == until) return null;
+                    statements(f, body);
+                }
+            }
+            case "to:do:":
+            case "to:by:do:":
+                return loop(f, expr);
+        }
+
+        Object receiver = eval(f, expr.receiver());
+        long a = bits;
+        switch(selector) {
+            case "ifTrue:":
+            case "ifFalse:":
+            case "and:":
+            case "or:": {
+                bool(receiver);
+                boolean conditional = selector.startsWith("if");
+                Boolean runs = selector.equals("ifTrue:") || selector.equals("and:") ? Boolean.TRUE : Boolean.FALSE;
+                if(receiver == runs) {
+                    Object result = inline(f, args.get(keyword(selector)));
+                    return conditional ? result : bool(result);
+                }
+                return conditional ? null : receiver;
+            }
+            case "ifTrue:ifFalse:":
+            case "ifFalse:ifTrue:":
+                return inline(f, args.get(bool(receiver) == Boolean.TRUE ? "ifTrue" : "ifFalse"));
+            case "ifNil:":
+                if(receiver == null) return inline(f, args.get("ifNil"));
+                bits = a;
+                return receiver;
+            case "ifNotNil:":
+                if(receiver == null) return null;
+                return ifNotNil(f, (AST.Block) args.get("ifNotNil"), receiver, a);
+            case "ifNil:ifNotNil:":
+            case "ifNotNil:ifNil:":
+                if(receiver == null) return inline(f, args.get("ifNil"));
+                return ifNotNil(f, (AST.Block) args.get("ifNotNil"), receiver, a);
+            case "timesRepeat:": {
+                List<AST.Stmt> body = ((AST.Block) args.get("timesRepeat")).statements();
+                if(receiver == SMALL) {
+                    for(long i = 0; i < a; i++) statements(f, body);
+                    bits = a;
+                    return SMALL;
+                }
+                // Float and LargeInteger counts go through the generic arithmetic.
+                Object count = box(receiver, a);
+                if(!Numbers.isNumber(count)) throw notUnderstood(count, selector);
+                for(Object i = 1L; Numbers.compare(Numbers.LE, i, count); i = Numbers.arithmetic(Numbers.ADD, i, 1L)) statements(f, body);
+                return unbox(count);
+            }
+        }
+        throw new RuntimeError("Unknown inlined selector #" + selector + ".");
+    }
+
+    private Object ifNotNil(Frame f, AST.Block block, Object receiver, long raw) {
+        if(argCount(block) == 1) {
+            int index = slots.get(block.args().get(0));
+            f.values[index] = receiver;
+            f.bits[index] = raw;
+        }
+        return statements(f, block.statements());
+    }
+
+    // [...] whileTrue, whileFalse and repeat, with the receiver block inlined.
+    private Object repeat(Frame f, AST.UnaryExpression expr) {
+        String selector = expr.messages().get(0).name();
+        boolean forever = selector.equals("repeat");
+        Boolean until = selector.equals("whileTrue") ? Boolean.FALSE : Boolean.TRUE;
+        List<AST.Stmt> body = ((AST.Block) expr.receiver()).statements();
+        while(true) {
+            Object result = statements(f, body);
+            if(!forever && bool(result) == until) return null;
+        }
+    }
+
+    private Object loop(Frame f, AST.KeywordExpression expr) {
+        Map<String, AST.Expr> args = expr.message().arguments();
+        AST.Block block = (AST.Block) args.get("do");
+        int index = slots.get(block.args().get(0));
+        List<AST.Stmt> body = block.statements();
+
+        Object start = eval(f, expr.receiver());
+        long from = bits;
+        Object end = eval(f, args.get("to"));
+        long to = bits;
+        Object step = SMALL;
+        long by = 1;
+        if(args.containsKey("by")) {
+            step = eval(f, args.get("by"));
+            by = bits;
+        }
+
+        if(start == SMALL && end == SMALL && step == SMALL && by != 0) {
+            for(long i = from; by > 0 ? i <= to : i >= to; ) {
+                f.values[index] = SMALL;
+                f.bits[index] = i;
+                statements(f, body);
+                long next = i + by;
+                if(by > 0 ? next < i : next > i) break;
+                i = next;
+            }
+            bits = from;
+            return SMALL;
+        }
+
+        // Float or LargeInteger bounds go through the generic arithmetic.
+        Object i = box(start, from);
+        Object limit = box(end, to);
+        Object increment = box(step, by);
+        int test = loopTest(i, limit, increment);
+        while(Numbers.compare(test, i, limit)) {
+            put(f, index, i);
+            statements(f, body);
+            i = Numbers.arithmetic(Numbers.ADD, i, increment);
+        }
+        bits = from;
+        return start;
+    }
+
+    // Checks to:do: bounds and step for both the inlined and the closure path, and answers the
+    // comparison that keeps the loop running.
+    private static int loopTest(Object from, Object to, Object step) {
+        if(!Numbers.isNumber(from) || !Numbers.isNumber(to) || !Numbers.isNumber(step)) {
+            throw new RuntimeError("to:do: needs numeric bounds, got " + print(from) + ", " + print(to) + " and " + print(step) + ".");
+        }
+        if(Numbers.compare(Numbers.EQ, step, 0L)) throw new RuntimeError("to:by:do: step must not be zero.");
+        return Numbers.compare(Numbers.GT, step, 0L) ? Numbers.LE : Numbers.GE;
+    }
+
+    private static Closure loopBlock(Object block, int args, String selector) {
+        if(block instanceof Closure closure && argCount(closure.block()) == args) return closure;
+        throw new RuntimeError(selector + " needs a block taking " + args + (args == 1 ? " argument" : " arguments") + ", got " + print(block) + ".");
+    }
+
+    // Primitives
+    private static String print(Object value) {
+        if(value == null) return "nil";
+        else if(value instanceof Object[] array) {
+            StringBuilder bob = new StringBuilder("{");
+            for(int i = 0; i < array.length; i++) {
+                if(i > 0) bob.append(", ");
+                bob.append(print(array[i]));
+            }
+            return bob.append("}").toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private RuntimeError notUnderstood(Object receiver, String selector) {
+        return new RuntimeError(print(receiver) + " (" + classOf(receiver) + ") does not understand #" + selector + ".");
+    }
+
+    private Object primitive(Object receiver, String selector, Object[] args) {
+        if(Numbers.isNumber(receiver)) {
+            int op = Numbers.opcode(selector);
+            if(op != Numbers.NONE) {
+                if(Numbers.isNumber(args[0])) return arithmetic(op, receiver, args[0]);
+                if(op == Numbers.EQ) return Boolean.FALSE;
+                if(op == Numbers.NE) return Boolean.TRUE;
+                throw new RuntimeError(print(receiver) + " " + selector + " " + print(args[0]) + ": argument is not a number.");
+            }
+            switch(selector) {
+                case "negated":
+                    return unbox(Numbers.arithmetic(Numbers.SUB, receiver instanceof Double ? (Object) 0.0 : (Object) 0L, receiver));
+                case "abs":
+                    return Numbers.compare(Numbers.LT, receiver, 0L) ? primitive(receiver, "negated", NO_ARGS) : unbox(receiver);
+                case "timesRepeat:": {
+                    Closure closure = loopBlock(args[0], 0, selector);
+                    for(Object i = 1L; Numbers.compare(Numbers.LE, i, receiver); i = Numbers.arithmetic(Numbers.ADD, i, 1L)) call(closure);
+                    return unbox(receiver);
+                }
+                case "to:do:":
+                case "to:by:do:": {
+                    Object step = args.length == 3 ? args[1] : (Object) 1L;
+                    Closure closure = loopBlock(args[args.length - 1], 1, selector);
+                    int test = loopTest(receiver, args[0], step);
+                    for(Object i = receiver; Numbers.compare(test, i, args[0]); i = Numbers.arithmetic(Numbers.ADD, i, step)) call(closure, i);
+                    return unbox(receiver);
+                }
+            }
+        } else if(receiver instanceof Boolean b) {
+            switch(selector) {
+                case "not": return !b;
+                case "&": return b && (Boolean) bool(args[0]);
+                case "|": return b || (Boolean) bool(args[0]);
+                case "and:": return b ? bool(value(args[0])) : Boolean.FALSE;
+                case "or:": return b ? Boolean.TRUE : bool(value(args[0]));
+                case "ifTrue:": return b ? unbox(value(args[0])) : null;
+                case "ifFalse:": return b ? null : unbox(value(args[0]));
+                case "ifTrue:ifFalse:": return unbox(value(args[b ? 0 : 1]));
+                case "ifFalse:ifTrue:": return unbox(value(args[b ? 1 : 0]));
+            }
+        } else if(receiver instanceof Closure closure) {
+            switch(selector) {
+                case "value":
+                case "value:":
+                case "value:value:":
+                case "value:value:value:":
+                    return call(closure, args);
+                case "numArgs":
+                    bits = argCount(closure.block());
+                    return SMALL;
+                case "whileTrue:":
+                case "whileFalse:": {
+                    Boolean until = selector.equals("whileTrue:") ? Boolean.FALSE : Boolean.TRUE;
+                    while(bool(box(call(closure))) != until) value(args[0]);
+                    return null;
+                }
+                case "whileTrue":
+                case "whileFalse": {
+                    Boolean until = selector.equals("whileTrue") ? Boolean.FALSE : Boolean.TRUE;
+                    while(bool(box(call(closure))) != until);
+                    return null;
+                }
+                case "repeat":
+                    while(true) call(closure);
+            }
+        } else if(receiver instanceof Transcript transcript) {
+            switch(selector) {
+                case "show:":
+                    transcript.show(args[0] instanceof String text ? text : print(args[0]));
+                    return receiver;
+                case "print:":
+                    transcript.print(print(args[0]));
+                    return receiver;
+                case "cr":
+                    transcript.cr();
+                    return receiver;
+                case "flush":
+                    transcript.flush();
+                    return receiver;
+            }
+        } else if(receiver instanceof Object[] array) {
+            switch(selector) {
+                case "size":
+                    bits = array.length;
+                    return SMALL;
+                case "at:":
+                    return unbox(array[index(array, args[0])]);
+                case "at:put:":
+                    array[index(array, args[0])] = args[1];
+                    return unbox(args[1]);
+            }
+        } else if(receiver instanceof String text) {
+            if(selector.equals("size")) {
+                bits = text.length();
+                return SMALL;
+            }
+        } else if(receiver instanceof ClassInfo cls) {
+            if(selector.equals("name")) return cls.name;
+        }
+
+        switch(selector) {
+            case "==": return receiver == args[0] || receiver instanceof Long && receiver.equals(args[0]);
+            case "=": return Objects.equals(receiver, args[0]);
+            case "!=": return !Objects.equals(receiver, args[0]);
+            case "isNil": return receiver == null;
+            case "ifNil:": return unbox(receiver == null ? value(args[0]) : receiver);
+            case "ifNotNil:": return receiver == null ? null : unbox(value(args[0], receiver));
+            case "ifNil:ifNotNil:": return unbox(receiver == null ? value(args[0]) : value(args[1], receiver));
+            case "ifNotNil:ifNil:": return unbox(receiver == null ? value(args[1]) : value(args[0], receiver));
+            case "notNil": return receiver != null;
+            case "yourself": return unbox(receiver);
+            case "class": return classOf(receiver);
+            case "printString": return print(receiver);
+        }
+        throw notUnderstood(receiver, selector);
+    }
+
+    private int index(Object[] array, Object index) {
+        if(index instanceof Long i && i >= 1 && i <= array.length) return (int) (i - 1);
+        throw new RuntimeError("Index " + print(index) + " is out of bounds for an Array of size " + array.length + ".");
+    }
+}
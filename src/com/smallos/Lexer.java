@@ -8,9 +8,21 @@ import java.util.Map;
 import static java.util.Map.entry;
 
 public class Lexer {
-    public record Token(int lineNum, String type, String value) {
+    public record Token(int offset, String type, String value, SourceMap source) {
+        public int lineNum() {
+            return source.line(offset);
+        }
+        public int column() {
+            return source.column(offset);
+        }
+        public long span() {
+            return SourceMap.span(offset, offset + value.length());
+        }
+        public int end() {
+            return offset + value.length();
+        }
         public String toString() {
-            return String.format("(<%s> %s @ %s)", type, value, lineNum);
+            return String.format("(<%s> %s @ %s:%s)", type, value, lineNum(), column());
         }
     }
     
@@ -60,10 +72,17 @@ public class Lexer {
     }
     
     public static List<Token> tokenize(String text) {
+        return tokenize(text, null);
+    }
+    
+    // Recovery mode: with an errors list, each run of unknown characters is reported there and skipped
+    // instead of aborting, so the parser can still report everything else in the same pass.
+    public static List<Token> tokenize(String text, List<SyntaxError> errors) {
         ArrayList<Token> tokens = new ArrayList<>();
         Matcher m = pattern.matcher(text);
         
-        int line = 1;
+        SourceMap source = new SourceMap();
+        int mismatchEnd = -1;
         while(m.find()) {
             String type = findGroupName(m);
             String value = m.group();
@@ -74,17 +93,22 @@ public class Lexer {
                         type = value.toUpperCase();
                     break;
                 case "NEWLINE":
-                    line++;
+                    source.addLine(m.end());
                 case "SKIP":
                 case "COMMENT":
                     continue;
                 case "MISMATCH":
-                    throw new SyntaxError("Unknown character at line " + line + ":" + value);
+                    int line = source.line(m.start());
+                    SyntaxError e = new SyntaxError("Unknown character at line " + line + ":" + value, line, source.column(m.start()));
+                    if(errors == null) throw e;
+                    if(m.start() != mismatchEnd) errors.add(e);
+                    mismatchEnd = m.end();
+                    continue;
             }
 
-            tokens.add(new Token(line, type, value));
+            tokens.add(new Token(m.start(), type, value, source));
         }
-        tokens.add(new Token(line, "EOF", ""));
+        tokens.add(new Token(text.length(), "EOF", "", source));
         
         return tokens;
     }
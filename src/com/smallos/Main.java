@@ -0,0 +1,36 @@
+package com.smallos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Compiler entry point: lexes and parses each source file, printing every diagnostic.
+public class Main {
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) {
+            System.err.println("Usage: java -jar JComp.jar <source.st>...");
+            System.exit(2);
+        }
+
+        int errors = 0;
+        for(String file : args) {
+            String text = Files.readString(Path.of(file));
+            try {
+                List<SyntaxError> diagnostics = new ArrayList<>();
+                Parser.Result result = Parser.parseRecovering(Lexer.tokenize(text, diagnostics));
+                diagnostics.addAll(result.errors());
+                diagnostics.sort(Comparator.comparingInt(SyntaxError::line).thenComparingInt(SyntaxError::column));
+                for(SyntaxError e : diagnostics) {
+                    System.err.println(file + ":" + e.line() + ":" + e.column() + ": " + e.getMessage());
+                }
+                errors += diagnostics.size();
+            } catch(SyntaxError e) {
+                System.err.println(file + ":" + e.line() + ":" + e.column() + ": " + e.getMessage());
+                errors++;
+            }
+        }
+        System.exit(errors == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,190 @@
+package com.smallos;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// Numeric tower shared by the parser and the interpreter.
+//   SmallInteger: a long. The interpreter keeps it unboxed and only boxes it to Long when it has to be stored as an object.
+//   LargeInteger: a BigInteger outside the long range. Results are normalized, so a value never has both forms.
+//   Float:        a double, kept unboxed the same way and boxed to Double.
+// Mixed operands are coerced to the more general class: SmallInteger < LargeInteger < Float.
+public class Numbers {
+    // Selectors with arithmetic and comparison fast paths.
+    public static final int NONE = -1;
+    public static final int ADD = 0;
+    public static final int SUB = 1;
+    public static final int MUL = 2;
+    public static final int DIV = 3;
+    public static final int LT = 4;
+    public static final int GT = 5;
+    public static final int LE = 6;
+    public static final int GE = 7;
+    public static final int EQ = 8;
+    public static final int NE = 9;
+    public static final int OPS = 10;
+
+    // Class bits, used to record which classes have a selector redefined.
+    public static final int SMALL_INTEGER = 1;
+    public static final int LARGE_INTEGER = 2;
+    public static final int FLOAT = 4;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    public static int opcode(String selector) {
+        switch(selector) {
+            case "+": return ADD;
+            case "-": return SUB;
+            case "*": return MUL;
+            case "/": return DIV;
+            case "<": return LT;
+            case ">": return GT;
+            case "<=": return LE;
+            case ">=": return GE;
+            case "=": return EQ;
+            case "!=": return NE;
+            default: return NONE;
+        }
+    }
+
+    public static boolean isComparison(int op) {
+        return op >= LT;
+    }
+
+    public static boolean isNumber(Object value) {
+        return value instanceof Long || value instanceof BigInteger || value instanceof Double;
+    }
+
+    // Class bit of a number, 0 for anything else.
+    public static int classBit(Object value) {
+        if(value instanceof Long) return SMALL_INTEGER;
+        else if(value instanceof BigInteger) return LARGE_INTEGER;
+        else if(value instanceof Double) return FLOAT;
+        return 0;
+    }
+
+    public static String className(Object value) {
+        if(value instanceof Long) return "SmallInteger";
+        else if(value instanceof BigInteger) return "LargeInteger";
+        else if(value instanceof Double) return "Float";
+        return null;
+    }
+
+    // Parses a NUMBER token: integral text becomes a SmallInteger or LargeInteger, anything else a Float.
+    public static Number parse(String text) {
+        if(text.indexOf('.') >= 0) return Double.parseDouble(text);
+        try {
+            return Long.parseLong(text);
+        } catch(NumberFormatException e) {
+            return new BigInteger(text);
+        }
+    }
+
+    public static Number normalize(BigInteger value) {
+        if(value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) return value.longValue();
+        return value;
+    }
+
+    private static BigInteger large(Object value) {
+        if(value instanceof BigInteger big) return big;
+        return BigInteger.valueOf((Long) value);
+    }
+
+    private static double real(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    private static ArithmeticException zeroDivide() {
+        return new ArithmeticException("ZeroDivide: division by zero.");
+    }
+
+    // Generic path for any pair of numbers. Callers handle SmallInteger and Float pairs inline
+    // and only land here for LargeInteger operands, overflow or errors.
+    public static Object arithmetic(int op, Object a, Object b) {
+        if(isComparison(op)) return compare(op, a, b);
+
+        if(a instanceof Double || b instanceof Double) return real(op, real(a), real(b));
+
+        BigInteger x = large(a);
+        BigInteger y = large(b);
+        switch(op) {
+            case ADD: return normalize(x.add(y));
+            case SUB: return normalize(x.subtract(y));
+            case MUL: return normalize(x.multiply(y));
+            case DIV: {
+                if(y.signum() == 0) throw zeroDivide();
+                BigInteger[] qr = x.divideAndRemainder(y);
+                // No Fractions yet, so inexact quotients fall back to Float.
+                if(qr[1].signum() == 0) return normalize(qr[0]);
+                return x.doubleValue() / y.doubleValue();
+            }
+        }
+        throw new IllegalArgumentException("Unknown arithmetic opcode " + op);
+    }
+
+    public static double real(int op, double x, double y) {
+        switch(op) {
+            case ADD: return x + y;
+            case SUB: return x - y;
+            case MUL: return x * y;
+            case DIV:
+                if(y == 0) throw zeroDivide();
+                return x / y;
+        }
+        throw new IllegalArgumentException("Unknown arithmetic opcode " + op);
+    }
+
+    // A LargeInteger loses precision as a double, so it is compared against a finite Float exactly.
+    public static Boolean compare(int op, Object a, Object b) {
+        if(a instanceof Double || b instanceof Double) {
+            double x = real(a);
+            double y = real(b);
+            if(!(a instanceof BigInteger || b instanceof BigInteger) || Double.isNaN(x) || Double.isNaN(y)) return compare(op, x, y);
+            // An infinite Float is beyond every LargeInteger; zero stands in for the integer side.
+            if(Double.isInfinite(a instanceof Double ? x : y)) return compare(op, a instanceof Double ? x : 0, b instanceof Double ? y : 0);
+            return order(op, exact(a).compareTo(exact(b)));
+        }
+        return order(op, large(a).compareTo(large(b)));
+    }
+
+    private static BigDecimal exact(Object value) {
+        if(value instanceof Double real) return new BigDecimal(real);
+        return new BigDecimal(large(value));
+    }
+
+    private static boolean order(int op, int order) {
+        switch(op) {
+            case LT: return order < 0;
+            case GT: return order > 0;
+            case LE: return order <= 0;
+            case GE: return order >= 0;
+            case EQ: return order == 0;
+            case NE: return order != 0;
+        }
+        throw new IllegalArgumentException("Unknown comparison opcode " + op);
+    }
+
+    public static boolean compare(int op, long x, long y) {
+        switch(op) {
+            case LT: return x < y;
+            case GT: return x > y;
+            case LE: return x <= y;
+            case GE: return x >= y;
+            case EQ: return x == y;
+            case NE: return x != y;
+        }
+        throw new IllegalArgumentException("Unknown comparison opcode " + op);
+    }
+
+    // NaN compares unequal to everything, itself included.
+    public static boolean compare(int op, double x, double y) {
+        switch(op) {
+            case LT: return x < y;
+            case GT: return x > y;
+            case LE: return x <= y;
+            case GE: return x >= y;
+            case EQ: return x == y;
+            case NE: return x != y;
+        }
+        throw new IllegalArgumentException("Unknown comparison opcode " + op);
+    }
+}
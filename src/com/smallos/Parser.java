@@ -9,11 +9,25 @@ public class Parser {
         List<Lexer.Token> tokens;
         int pos;
         
+        // Recovery mode: errors is null when parsing strictly.
+        List<SyntaxError> errors;
+        int depth;
+        boolean unwinding;
+        
+        // Expression engine stack, reused by every expression parsed with this Context.
+        List<Level> levels = new ArrayList<>();
+        int used;
+        
         public Context(List<Lexer.Token> tokens) {
             this.tokens = tokens;
             this.pos = 0;
         }
         
+        public Context(List<Lexer.Token> tokens, List<SyntaxError> errors) {
+            this(tokens);
+            this.errors = errors;
+        }
+        
         public boolean check(String type) {
             return peek().type().equals(type);
         }
@@ -50,8 +64,81 @@ public class Parser {
             return tokens.get(pos++);
         }
         
+        public SyntaxError diagnostic(String message) {
+            return diagnostic(message, pos);
+        }
+        public SyntaxError diagnostic(String message, int at) {
+            Lexer.Token tok = tokens.get(at);
+            return new SyntaxError("Error while parsing line " + tok.lineNum() + ": " + message + " latest token:" + tok, tok.lineNum(), tok.column());
+        }
         public void error(String message) {
-            throw new SyntaxError("Error while parsing line " + peek().lineNum() + ": " + message + " latest token:" + peek());
+            throw diagnostic(message);
+        }
+        
+        // Source span from the token at start up to the last consumed token.
+        public long span(int start) {
+            int from = tokens.get(start).offset();
+            return SourceMap.span(from, pos > start ? tokens.get(pos - 1).end() : from);
+        }
+        
+        // Records a diagnostic in recovery mode, rethrows it otherwise.
+        public AST.Error report(SyntaxError e, long span) {
+            if(errors == null) throw e;
+            errors.add(e);
+            return new AST.Error(e.getMessage(), span);
+        }
+        
+        // Bracket nesting change for one token.
+        private static int nesting(Lexer.Token tok) {
+            switch(tok.type()) {
+                case "LBRACKET":
+                case "LPAREN":
+                case "LBRACE":
+                    return 1;
+                case "RBRACKET":
+                case "RPAREN":
+                case "RBRACE":
+                    return -1;
+                default:
+                    return 0;
+            }
+        }
+
+        // Skips to the PERIOD that ends the failed statement, ignoring periods inside brackets it opened,
+        // or to the next END, CLASS or TRAIT. When a nested body hits CLASS, TRAIT or EOF,
+        // every enclosing body is closed so parsing resumes at the top level.
+        public AST.Error recover(SyntaxError e, int start) {
+            if(errors == null) throw e;
+            int open = 0;
+            for(int i = start; i < pos; i++) open = Math.max(0, open + nesting(tokens.get(i)));
+            boolean synced = false;
+            while(!synced && !check("EOF") && !check("END") && !check("CLASS") && !check("TRAIT")) {
+                Lexer.Token tok = advance();
+                open = Math.max(0, open + nesting(tok));
+                synced = open == 0 && tok.type().equals("PERIOD");
+            }
+            if(!synced) {
+                if(depth == 0 && pos == start && check("END")) {
+                    advance();
+                }
+                unwinding = depth > 0 && !check("END");
+            }
+            return report(e, span(start));
+        }
+        
+        public void end() {
+            if(!unwinding) expect("END");
+        }
+        
+        public Level push(int kind, int open, int goal) {
+            if(used == levels.size()) levels.add(new Level());
+            Level level = levels.get(used++);
+            level.reset(kind, open, goal);
+            return level;
+        }
+        public Level pop() {
+            used--;
+            return levels.get(used - 1);
         }
     }
     
@@ -59,101 +146,49 @@ public class Parser {
     
     // Values
     private static AST.Value literal(Context ctx) {
-        if(ctx.check("NUMBER")) return new AST.Num(Double.parseDouble(ctx.expect("NUMBER").value()));
-        else if(ctx.check("STRING")) return new AST.Str(ctx.expect("STRING").value());
-        else if(ctx.check("SYMBOL")) return new AST.Symbol(ctx.expect("SYMBOL").value());
-        else if(ctx.check("TRUE")) return new AST.Bool(true);
-        else if(ctx.check("FALSE")) return new AST.Bool(false);
-        else if(ctx.check("NIL")) return new AST.Nil();
+        int start = ctx.pos;
+        if(ctx.check("NUMBER")) return new AST.Num(Numbers.parse(ctx.expect("NUMBER").value()), ctx.span(start));
+        else if(ctx.check("STRING")) return new AST.Str(ctx.expect("STRING").value(), ctx.span(start));
+        else if(ctx.check("SYMBOL")) return new AST.Symbol(ctx.expect("SYMBOL").value(), ctx.span(start));
+        else if(ctx.accept("TRUE") != null) return new AST.Bool(true, ctx.span(start));
+        else if(ctx.accept("FALSE") != null) return new AST.Bool(false, ctx.span(start));
+        else if(ctx.accept("NIL") != null) return new AST.Nil(ctx.span(start));
 
         return null;
     }
     
     private static AST.Identifier identifier(Context ctx) {
-        return new AST.Identifier(ctx.expect("ID").value());
+        int start = ctx.pos;
+        return new AST.Identifier(ctx.expect("ID").value(), ctx.span(start));
     }
     
     private static AST.ByteBlock byteBlock(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("LBRACKET");
         List<Byte> bytes = new ArrayList<>();
         while(ctx.check("BYTE")) {
             bytes.add(Byte.parseByte(ctx.accept("BYTE").value()));
         }
-        return new AST.ByteBlock(bytes.toArray(new Byte[bytes.size()]));
-    }
-    
-    private static AST.Block block(Context ctx) {
-        ctx.expect("LBRACKET");
-        if(ctx.check("COLON")) {
-            ctx.expect("COLON");
-            List<AST.Identifier> args = new ArrayList<>();
-            while(ctx.check("ID")) {
-                args.add(identifier(ctx));
-            }
-            ctx.expect("PIPE");
-            List<AST.Stmt> statements = new ArrayList<>();
-            while(ctx.check("NEWLINE")) {
-                statements.add(statement(ctx));
-            }
-            ctx.expect("RBRACKET");
-            return new AST.Block(args, statements);
-        } else {
-            List<AST.Stmt> statements = new ArrayList<>();
-            while(ctx.check("NEWLINE")) {
-                statements.add(statement(ctx));
-            }
-            ctx.expect("RBRACKET");
-            return new AST.Block(null, statements);
-        }
-    }
-    
-    private static AST.Array array(Context ctx) {
-        List<AST.Expr> values = new ArrayList<>();
-        ctx.expect("LBRACE");
-        while(!ctx.check("RBRACE")) {
-            values.add(expression(ctx));
-            ctx.expect("COMMA");
-        }
-        ctx.expect("RBRACE");
-        return new AST.Array(values);
-    }
-    
-    private static AST.Value value(Context ctx) {
-        if(ctx.check("ID")) {
-            return identifier(ctx);
-        } else if(ctx.check("LBRACE")) {
-            return array(ctx);
-        } else if(ctx.check("LBRACKET")) {
-            return block(ctx);
-        } else if(ctx.check("HASH") && ctx.lookahead("LBRACKET")) {
-            return byteBlock(ctx);
-        } else if(ctx.check("STRING") || ctx.check("NUMBER") || ctx.check("SYMBOL") || ctx.check("TRUE") || ctx.check("FALSE") || ctx.check("NIL")) {
-            return literal(ctx);
-        } else if(ctx.check("LPAREN")) {
-            ctx.accept("LPAREN");
-            AST.Expr expr = expression(ctx);
-            ctx.expect("RPAREN");
-            return new AST.NestedExpr(expr);
-        } else {
-            ctx.error("Value expected.");
-            return null;
-        }
+        return new AST.ByteBlock(bytes.toArray(new Byte[bytes.size()]), ctx.span(start));
     }
     
     // Messages
     private static AST.UnaryMessage unaryMessage(Context ctx) {
+        int start = ctx.pos;
         String name = ctx.accept("ID").value();
-        return new AST.UnaryMessage(name);
+        return new AST.UnaryMessage(name, ctx.span(start));
     }
     
     private static AST.BinaryMessage binaryMessage(Context ctx) {
+        int start = ctx.pos;
         String name = ctx.accept("BINOP").value();
         AST.Expr argument = unaryExpression(ctx);
 
-        return new AST.BinaryMessage(name, argument);
+        return new AST.BinaryMessage(name, argument, ctx.span(start));
     }
     
     private static AST.KeywordMessage keywordMessage(Context ctx) {
+        int start = ctx.pos;
         StringBuilder bob = new StringBuilder();
         Map<String,AST.Expr> arguments = new HashMap<>();
 
@@ -167,7 +202,7 @@ public class Parser {
                 arguments.put(key, argument);
             }
     
-            return new AST.KeywordMessage(bob.toString(), arguments);
+            return new AST.KeywordMessage(bob.toString(), arguments, ctx.span(start));
         }
         return null;
     }
@@ -183,60 +218,350 @@ public class Parser {
     }
     
     // Expressions
-    private static AST.Expr unaryExpression(Context ctx) {
-        AST.Value receiver = value(ctx);
-        List<AST.UnaryMessage> messages = new ArrayList<>();
-        while(ctx.check("ID") && !ctx.lookahead("COLON")) {
-            messages.add(unaryMessage(ctx));
+    //
+    // Expressions are parsed without recursion. Each open '(', '{' or '[' pushes a Level onto an explicit
+    // stack, and a finished operand is reduced through the unary, binary, keyword and cascade layers of
+    // the innermost Level in precedence order. Nesting depth is therefore bounded by heap, not the Java stack.
+    
+    // What a Level must produce once its expression is complete.
+    private static final int EXPRESSION = 0, BINARY = 1, UNARY = 2;
+    // Kinds of Level.
+    private static final int TOP = 0, PAREN = 1, ARRAY = 2, BLOCK = 3;
+    // Cascade message in progress.
+    private static final int NO_MESSAGE = 0, BINARY_MESSAGE = 1, KEYWORD_MESSAGE = 2;
+    // Block statement being parsed.
+    private static final int EXPR_STMT = 0, ASSIGN_STMT = 1, ANSWER_STMT = 2, TEMP_STMT = 3;
+    
+    private static class Level {
+        int kind;
+        int open;
+        int goal;
+        
+        // Expression layers
+        int start;
+        AST.Expr binary;
+        int binaryStart;
+        List<AST.BinaryMessage> binaries;
+        String op;
+        int opStart;
+        AST.Expr receiver;
+        StringBuilder selector;
+        Map<String,AST.Expr> arguments;
+        String key;
+        int keywordStart;
+        AST.Expr primary;
+        List<AST.Message> cascade;
+        int message;
+        
+        // Contents of '{' and '['
+        List<AST.Expr> values;
+        List<AST.Identifier> args;
+        List<AST.Stmt> statements;
+        int statement;
+        int statementStart;
+        AST.Identifier name;
+        
+        public void reset(int kind, int open, int goal) {
+            this.kind = kind;
+            this.open = open;
+            this.goal = goal;
+            this.binary = this.receiver = this.primary = null;
+            this.binaries = null;
+            this.cascade = null;
+            this.values = null;
+            this.args = null;
+            this.statements = null;
+            this.name = null;
+            begin(open);
         }
-        if(messages.isEmpty()) {
-            return receiver;
+        
+        public void begin(int start) {
+            this.start = start;
+            this.op = null;
+            this.selector = null;
+            this.message = NO_MESSAGE;
         }
-        return new AST.UnaryExpression(receiver, messages);
+    }
+    
+    private static boolean startsValue(Context ctx) {
+        return ctx.check("ID") || ctx.check("LBRACE") || ctx.check("LBRACKET") || ctx.check("HASH") || ctx.check("STRING") || ctx.check("NUMBER") || ctx.check("SYMBOL") || ctx.check("TRUE") || ctx.check("FALSE") || ctx.check("NIL") || ctx.check("LPAREN");
+    }
+    
+    private static AST.Expr unaryExpression(Context ctx) {
+        return run(ctx, UNARY);
     }
     
     private static AST.Expr binaryExpression(Context ctx) {
-        AST.Expr receiver = unaryExpression(ctx);
-        List<AST.BinaryMessage> messages = new ArrayList<>();
-        while(ctx.check("BINOP")) {
-            messages.add(binaryMessage(ctx));
-        }
-        if(messages.isEmpty()) {
-            return receiver;
+        return run(ctx, BINARY);
+    }
+    
+    private static AST.Expr expression(Context ctx) {
+        return run(ctx, EXPRESSION);
+    }
+    
+    private static AST.Expr run(Context ctx, int goal) {
+        int base = ctx.used;
+        try {
+            return run(ctx, ctx.push(TOP, ctx.pos, goal));
+        } finally {
+            ctx.used = base;
         }
-        return new AST.BinaryExpression(receiver, messages);
     }
     
-    private static AST.Expr keywordExpression(Context ctx) {
-        AST.Expr receiver = binaryExpression(ctx);
-        AST.KeywordMessage message = keywordMessage(ctx);
-        if(message == null) {
-            return receiver;
+    private static AST.Expr run(Context ctx, Level level) {
+        AST.Value value = null;
+        int valueStart = 0;
+        
+        while(true) {
+            // Operand: brackets push a Level and parse their first operand next.
+            if(value == null) {
+                valueStart = ctx.pos;
+                switch(ctx.peek().type()) {
+                    case "ID":
+                        value = identifier(ctx);
+                        break;
+                    case "LBRACE":
+                        ctx.expect("LBRACE");
+                        level = ctx.push(ARRAY, valueStart, EXPRESSION);
+                        level.values = new ArrayList<>();
+                        level.begin(ctx.pos);
+                        if(!ctx.check("RBRACE")) continue;
+                        ctx.expect("RBRACE");
+                        value = new AST.Array(level.values, ctx.span(valueStart));
+                        level = ctx.pop();
+                        break;
+                    case "LBRACKET":
+                        ctx.expect("LBRACKET");
+                        level = ctx.push(BLOCK, valueStart, EXPRESSION);
+                        level.statements = new ArrayList<>();
+                        if(ctx.check("COLON")) {
+                            ctx.expect("COLON");
+                            level.args = new ArrayList<>();
+                            while(ctx.check("ID")) {
+                                level.args.add(identifier(ctx));
+                            }
+                            ctx.expect("PIPE");
+                        }
+                        if(blockStatement(ctx, level)) continue;
+                        value = new AST.Block(level.args, level.statements, ctx.span(valueStart));
+                        level = ctx.pop();
+                        break;
+                    case "HASH":
+                        if(!ctx.lookahead("LBRACKET")) ctx.error("Value expected.");
+                        value = byteBlock(ctx);
+                        break;
+                    case "STRING":
+                    case "NUMBER":
+                    case "SYMBOL":
+                    case "TRUE":
+                    case "FALSE":
+                    case "NIL":
+                        value = literal(ctx);
+                        break;
+                    case "LPAREN":
+                        ctx.accept("LPAREN");
+                        level = ctx.push(PAREN, valueStart, EXPRESSION);
+                        level.begin(ctx.pos);
+                        continue;
+                    default:
+                        ctx.error("Value expected.");
+                }
+            }
+            
+            // Unary layer
+            AST.Expr operand = value;
+            List<AST.UnaryMessage> messages = null;
+            while(ctx.check("ID") && !ctx.lookahead("COLON")) {
+                if(messages == null) messages = new ArrayList<>();
+                messages.add(unaryMessage(ctx));
+            }
+            if(messages != null) {
+                operand = new AST.UnaryExpression(value, messages, ctx.span(valueStart));
+            }
+            value = null;
+            AST.Expr done = level.goal == UNARY ? operand : reduce(ctx, level, operand, valueStart);
+            if(done == null) continue;
+            
+            // The innermost Level is complete: close its bracket and hand the value to the enclosing Level.
+            while(value == null) {
+                if(level.kind == TOP) {
+                    return done;
+                } else if(level.kind == PAREN) {
+                    ctx.expect("RPAREN");
+                    value = new AST.NestedExpr(done, ctx.span(level.open));
+                } else if(level.kind == ARRAY) {
+                    level.values.add(done);
+                    ctx.expect("COMMA");
+                    if(!ctx.check("RBRACE")) {
+                        level.begin(ctx.pos);
+                        break;
+                    }
+                    ctx.expect("RBRACE");
+                    value = new AST.Array(level.values, ctx.span(level.open));
+                } else {
+                    level.statements.add(blockStatement(ctx, level, done));
+                    if(blockStatement(ctx, level)) break;
+                    value = new AST.Block(level.args, level.statements, ctx.span(level.open));
+                }
+                valueStart = level.open;
+                level = ctx.pop();
+            }
         }
-        return new AST.KeywordExpression(receiver, message);
     }
     
-    private static AST.Expr expression(Context ctx) {
-        AST.Expr receiver = keywordExpression(ctx);
-        List<AST.Message> messages = new ArrayList<>();
-
+    // Feeds a finished unary expression through the binary, keyword and cascade layers of level.
+    // Returns the completed expression, or null when the next token starts another operand.
+    private static AST.Expr reduce(Context ctx, Level level, AST.Expr operand, int operandStart) {
+        if(level.message == BINARY_MESSAGE) {
+            level.cascade.add(new AST.BinaryMessage(level.op, operand, ctx.span(level.opStart)));
+            level.op = null;
+            level.message = NO_MESSAGE;
+            return cascade(ctx, level);
+        }
+        
+        // Binary layer
+        if(level.op != null) {
+            if(level.binaries == null) level.binaries = new ArrayList<>();
+            level.binaries.add(new AST.BinaryMessage(level.op, operand, ctx.span(level.opStart)));
+            level.op = null;
+        } else {
+            level.binary = operand;
+            level.binaryStart = operandStart;
+            level.binaries = null;
+        }
+        if(ctx.check("BINOP")) {
+            level.opStart = ctx.pos;
+            level.op = ctx.expect("BINOP").value();
+            return null;
+        }
+        AST.Expr binary = level.binaries == null ? level.binary : new AST.BinaryExpression(level.binary, level.binaries, ctx.span(level.binaryStart));
+        if(level.goal == BINARY) return binary;
+        
+        // Keyword layer
+        if(level.selector != null) {
+            level.arguments.put(level.key, binary);
+        } else {
+            level.receiver = binary;
+        }
+        if(ctx.check("ID") && ctx.lookahead("COLON")) {
+            keywordPart(ctx, level);
+            return null;
+        }
+        AST.Expr expr = level.receiver;
+        if(level.selector != null) {
+            AST.KeywordMessage message = new AST.KeywordMessage(level.selector.toString(), level.arguments, ctx.span(level.keywordStart));
+            level.selector = null;
+            if(level.message == KEYWORD_MESSAGE) {
+                level.cascade.add(message);
+                level.message = NO_MESSAGE;
+                return cascade(ctx, level);
+            }
+            expr = new AST.KeywordExpression(level.receiver, message, ctx.span(level.start));
+        }
+        
+        // Cascade layer
         if(ctx.check("SEMICOLON")) {
-            while(ctx.check("SEMICOLON")) {
-                ctx.expect("SEMICOLON");
-                messages.add(message(ctx));
+            level.primary = expr;
+            level.cascade = new ArrayList<>();
+            return cascade(ctx, level);
+        }
+        return expr;
+    }
+    
+    private static void keywordPart(Context ctx, Level level) {
+        if(level.selector == null) {
+            level.keywordStart = ctx.pos;
+            level.selector = new StringBuilder();
+            level.arguments = new HashMap<>();
+        }
+        level.key = ctx.expect("ID").value();
+        ctx.expect("COLON");
+        level.selector.append(level.key).append(":");
+    }
+    
+    // Parses cascaded messages up to one that needs an operand (returns null) or the end of the cascade.
+    private static AST.Expr cascade(Context ctx, Level level) {
+        while(ctx.check("SEMICOLON")) {
+            ctx.expect("SEMICOLON");
+            if(ctx.check("ID") && ctx.lookahead("COLON")) {
+                level.message = KEYWORD_MESSAGE;
+                keywordPart(ctx, level);
+                return null;
+            } else if(ctx.check("ID")) {
+                level.cascade.add(unaryMessage(ctx));
+            } else if(ctx.check("BINOP")) {
+                level.message = BINARY_MESSAGE;
+                level.opStart = ctx.pos;
+                level.op = ctx.expect("BINOP").value();
+                return null;
+            } else {
+                ctx.error("Expected message, got " + ctx.peek().type());
             }
-            return new AST.Cascade(receiver, messages);
         }
-        return receiver;
+        return new AST.Cascade(level.primary, level.cascade, ctx.span(level.start));
+    }
+    
+    // Starts the next statement of a block. Returns true when its expression must be parsed,
+    // false once the closing bracket has been consumed.
+    private static boolean blockStatement(Context ctx, Level level) {
+        while(!ctx.check("RBRACKET")) {
+            int start = ctx.pos;
+            if(ctx.check("VAR")) {
+                ctx.expect("VAR");
+                level.name = identifier(ctx);
+                AST.Expr val = new AST.Nil(ctx.span(ctx.pos));
+                if(ctx.accept("ASSIGN") == null) {
+                    ctx.expect("PERIOD", "Statements must be ended with a period.");
+                    level.statements.add(new AST.TempDecl(level.name, val, ctx.span(start)));
+                    continue;
+                }
+                level.statement = TEMP_STMT;
+            } else if(ctx.check("ANSWER")) {
+                ctx.expect("ANSWER");
+                level.statement = ANSWER_STMT;
+            } else if(ctx.check("ID") && ctx.lookahead("ASSIGN")) {
+                level.name = identifier(ctx);
+                ctx.expect("ASSIGN");
+                level.statement = ASSIGN_STMT;
+            } else if(startsValue(ctx)) {
+                level.statement = EXPR_STMT;
+            } else {
+                level.statements.add(statement(ctx));
+                continue;
+            }
+            level.statementStart = start;
+            level.begin(ctx.pos);
+            return true;
+        }
+        ctx.expect("RBRACKET");
+        return false;
+    }
+    
+    // Wraps a finished block statement expression, mirroring statement().
+    private static AST.Stmt blockStatement(Context ctx, Level level, AST.Expr expr) {
+        if(level.statement == TEMP_STMT) {
+            ctx.expect("PERIOD", "Statements must be ended with a period.");
+            return new AST.TempDecl(level.name, expr, ctx.span(level.statementStart));
+        } else if(level.statement == ANSWER_STMT) {
+            ctx.expect("PERIOD", "Statements must be ended with a period.");
+            return new AST.Answer(expr, ctx.span(level.statementStart));
+        } else if(level.statement == ASSIGN_STMT) {
+            AST.Assignment val = new AST.Assignment(level.name, expr, ctx.span(level.statementStart));
+            ctx.expect("PERIOD", "Statements must end with a period.");
+            return val;
+        }
+        ctx.expect("PERIOD", "Statements must end with a period.");
+        return expr;
     }
     
     // Members
     private static AST.Signature signature(Context ctx) {
+        int start = ctx.pos;
         String name;
         if(ctx.check("BINOP")) {
             name = ctx.expect("BINOP").value();
             AST.Identifier arg = identifier(ctx);
-            return new AST.BinarySignature(name, arg);
+            return new AST.BinarySignature(name, arg, ctx.span(start));
         } else if(ctx.check("ID")) {
             if(ctx.lookahead("COLON")) {
                 StringBuilder bob = new StringBuilder();
@@ -250,9 +575,9 @@ public class Parser {
                     bob.append(key).append(":");
                     args.put(key, val);
                 }
-                return new AST.KeywordSignature(bob.toString(), args);
+                return new AST.KeywordSignature(bob.toString(), args, ctx.span(start));
             } else {
-                return new AST.UnarySignature(ctx.expect("ID").value());
+                return new AST.UnarySignature(ctx.expect("ID").value(), ctx.span(start));
             }
         } else {
             ctx.error("Expected signature.");
@@ -261,32 +586,43 @@ public class Parser {
     }
     
     private static AST.Requirement requirement(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("REQUIRE");
         AST.Signature sig = signature(ctx);
         ctx.expect("PERIOD");
-        return new AST.Requirement(sig);
+        return new AST.Requirement(sig, ctx.span(start));
     }
     
     private static AST.Method method(Context ctx) {
+        int start = ctx.pos;
         boolean isStatic = ctx.accept("STATIC") != null;
         ctx.expect("DEF");
         AST.Signature sig = signature(ctx);
         ctx.expect("AS");
         List<AST.Stmt> statements = new ArrayList<>();
-        while(ctx.accept("END") == null) {
-            statements.add(statement(ctx));
+        ctx.depth++;
+        while(!ctx.check("END") && !ctx.unwinding) {
+            int stmtStart = ctx.pos;
+            try {
+                statements.add(statement(ctx));
+            } catch(SyntaxError e) {
+                statements.add(ctx.recover(e, stmtStart));
+            }
         }
-        return new AST.Method(isStatic, sig, statements);
+        ctx.depth--;
+        ctx.end();
+        return new AST.Method(isStatic, sig, statements, ctx.span(start));
     }
     
     private static AST.Field field(Context ctx) {
+        int start = ctx.pos;
         boolean isStatic = ctx.accept("STATIC") != null;
         ctx.expect("VAR");
         String name = ctx.expect("ID").value();
-        AST.Expr val = new AST.Nil();
+        AST.Expr val = new AST.Nil(ctx.span(ctx.pos));
         if(ctx.accept("ASSIGN") != null) val = expression(ctx);
         ctx.expect("PERIOD", "Statements must be ended with a period.");
-        return new AST.Field(isStatic, name, val);
+        return new AST.Field(isStatic, name, val, ctx.span(start));
     }
     
     private static AST.Member member(Context ctx) {
@@ -307,19 +643,22 @@ public class Parser {
     
     // Statements
     private static AST.Pragma pragma(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("AT");
         AST.Message val = message(ctx);
-        return new AST.Pragma(val);
+        return new AST.Pragma(val, ctx.span(start));
     }
     
     private static AST.Answer answer(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("ANSWER");
         AST.Expr val = expression(ctx);
         ctx.expect("PERIOD", "Statements must be ended with a period.");
-        return new AST.Answer(val);
+        return new AST.Answer(val, ctx.span(start));
     }
     
     private static AST.TraitDef traitDef(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("TRAIT");
         AST.Identifier name = identifier(ctx);
         AST.Identifier parent = null;
@@ -328,18 +667,26 @@ public class Parser {
         }
         ctx.expect("IS");
         List<AST.Member> members = new ArrayList<>();
-        while(!ctx.check("END")) {
-            AST.Member val = member(ctx);
-            if(val instanceof AST.Field) {
-                ctx.error("Traits cannot contain fields.");
+        ctx.depth++;
+        while(!ctx.check("END") && !ctx.unwinding) {
+            int memberStart = ctx.pos;
+            try {
+                AST.Member val = member(ctx);
+                if(val instanceof AST.Field) {
+                    val = ctx.report(ctx.diagnostic("Traits cannot contain fields.", memberStart), ctx.span(memberStart));
+                }
+                members.add(val);
+            } catch(SyntaxError e) {
+                members.add(ctx.recover(e, memberStart));
             }
-            members.add(val);
         }
-        ctx.expect("END");
-        return new AST.TraitDef(name, parent, members);
+        ctx.depth--;
+        ctx.end();
+        return new AST.TraitDef(name, parent, members, ctx.span(start));
     }
     
     private static AST.ClassDef classDef(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("CLASS");
         AST.Identifier name = identifier(ctx);
         AST.Identifier parent = null;
@@ -354,31 +701,40 @@ public class Parser {
         }
         ctx.expect("IS");
         List<AST.Member> members = new ArrayList<>();
-        while(!ctx.check("END")) {
-            AST.Member val = member(ctx);
-            if(val instanceof AST.Requirement) {
-                ctx.error("Classes cannot contain requirements.");
+        ctx.depth++;
+        while(!ctx.check("END") && !ctx.unwinding) {
+            int memberStart = ctx.pos;
+            try {
+                AST.Member val = member(ctx);
+                if(val instanceof AST.Requirement) {
+                    val = ctx.report(ctx.diagnostic("Classes cannot contain requirements.", memberStart), ctx.span(memberStart));
+                }
+                members.add(val);
+            } catch(SyntaxError e) {
+                members.add(ctx.recover(e, memberStart));
             }
-            members.add(val);
         }
-        ctx.expect("END");
-        return new AST.ClassDef(name, parent, traits, members);
+        ctx.depth--;
+        ctx.end();
+        return new AST.ClassDef(name, parent, traits, members, ctx.span(start));
     }
     
     private static AST.TempDecl tempDecl(Context ctx) {
+        int start = ctx.pos;
         ctx.expect("VAR");
         AST.Identifier name = identifier(ctx);
-        AST.Expr val = new AST.Nil();
+        AST.Expr val = new AST.Nil(ctx.span(ctx.pos));
         if(ctx.accept("ASSIGN") != null) val = expression(ctx);
         ctx.expect("PERIOD", "Statements must be ended with a period.");
-        return new AST.TempDecl(name, val);
+        return new AST.TempDecl(name, val, ctx.span(start));
     }
     
     private static AST.Assignment assignment(Context ctx) {
+        int start = ctx.pos;
         AST.Identifier name = identifier(ctx);
         ctx.expect("ASSIGN");
         AST.Expr val = expression(ctx);
-        return new AST.Assignment(name, val);
+        return new AST.Assignment(name, val, ctx.span(start));
     }
     
     private static AST.Stmt statement(Context ctx) {
@@ -396,7 +752,7 @@ public class Parser {
             AST.Assignment val = assignment(ctx);
             ctx.expect("PERIOD", "Statements must end with a period.");
             return val;
-        } else if(ctx.check("ID") || ctx.check("LBRACE") || ctx.check("LBRACKET") || ctx.check("HASH") || ctx.check("STRING") || ctx.check("NUMBER") || ctx.check("SYMBOL") || ctx.check("TRUE") || ctx.check("FALSE") || ctx.check("NIL") || ctx.check("LPAREN")) {
+        } else if(startsValue(ctx)) {
             AST.Expr val = expression(ctx);
             ctx.expect("PERIOD", "Statements must end with a period.");
             return val;
@@ -409,13 +765,28 @@ public class Parser {
     private static AST.Program program(Context ctx) {
         List<AST.Stmt> statements = new ArrayList<>();
         while(!ctx.check("EOF")) {
-            statements.add(statement(ctx));
+            int start = ctx.pos;
+            try {
+                statements.add(statement(ctx));
+            } catch(SyntaxError e) {
+                statements.add(ctx.recover(e, start));
+            }
+            ctx.unwinding = false;
         }
-        return new AST.Program(statements);
+        return new AST.Program(statements, ctx.span(0));
     }
     
+    public record Result(AST.Program program, List<SyntaxError> errors) {}
+    
     public static AST.Program parse(List<Lexer.Token> tokens) {
         Context ctx = new Context(tokens);
         return program(ctx);
     }
+    
+    // Parses the whole token list, replacing each malformed statement or member with an AST.Error node.
+    public static Result parseRecovering(List<Lexer.Token> tokens) {
+        List<SyntaxError> errors = new ArrayList<>();
+        Context ctx = new Context(tokens, errors);
+        return new Result(program(ctx), errors);
+    }
 }
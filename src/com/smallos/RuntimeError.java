@@ -0,0 +1,7 @@
+package com.smallos;
+
+public class RuntimeError extends RuntimeException {
+    public RuntimeError(String message) {
+        super(message);
+    }
+}
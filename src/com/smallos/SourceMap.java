@@ -0,0 +1,61 @@
+package com.smallos;
+import java.util.Arrays;
+
+// Line-start offset table for one source text, filled in by the lexer as it passes each newline.
+// Spans are packed into a long: start offset in the high 32 bits, end offset in the low 32 bits.
+public class SourceMap {
+    private int[] lineStarts = new int[64];
+    private int lineCount = 1;
+    private int lastLine = 0;
+
+    void addLine(int offset) {
+        if(lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    public int lineStart(int line) {
+        return lineStarts[line - 1];
+    }
+
+    // 1-based line containing offset. Sequential lookups hit the cached line directly.
+    public int line(int offset) {
+        int last = lastLine;
+        if(offset >= lineStarts[last] && (last + 1 == lineCount || offset < lineStarts[last + 1])) {
+            return last + 1;
+        }
+        int lo = 0, hi = lineCount - 1;
+        while(lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if(lineStarts[mid] <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        lastLine = lo;
+        return lo + 1;
+    }
+
+    // 1-based column of offset within its line.
+    public int column(int offset) {
+        return offset - lineStarts[line(offset) - 1] + 1;
+    }
+
+    public static long span(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+    public static int start(long span) {
+        return (int) (span >>> 32);
+    }
+    public static int end(long span) {
+        return (int) span;
+    }
+
+    public String format(long span) {
+        int start = start(span);
+        return line(start) + ":" + column(start);
+    }
+}
@@ -1,7 +1,24 @@
 package com.smallos;
 
 public class SyntaxError extends RuntimeException {
+    private final int line;
+    private final int column;
+
     public SyntaxError(String message) {
+        this(message, 0, 0);
+    }
+
+    public SyntaxError(String message, int line, int column) {
         super(message);
+        this.line = line;
+        this.column = column;
+    }
+
+    public int line() {
+        return line;
+    }
+
+    public int column() {
+        return column;
     }
 }
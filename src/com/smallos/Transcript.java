@@ -0,0 +1,223 @@
+package com.smallos;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Runtime backing for the Transcript global. show:/print:/cr only publish into a lock-free
+// multi-producer ring; a single writer thread drains it in batches into a direct buffer
+// and hands that to the channel, so callers never wait on a syscall per message.
+public class Transcript implements AutoCloseable {
+    private static final long IDLE_NANOS = 1_000_000;
+    private static final long WAIT_NANOS = 50_000;
+    private static final int SPINS = 100;
+    private static Transcript stdout;
+
+    private final WritableByteChannel channel;
+    private final long flushNanos;
+
+    // Ring: a producer claims a sequence from tail, fills the slot, then publishes the sequence.
+    private final int mask;
+    private final AtomicReferenceArray<String> slots;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    // Writer state, only touched by the writer thread.
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long lastWrite = System.nanoTime();
+
+    private final AtomicLong flushTarget = new AtomicLong(-1);
+    private volatile long written;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private final Thread writer;
+
+    public Transcript(WritableByteChannel channel) {
+        this(channel, 1 << 14, 64 * 1024, 0);
+    }
+
+    // capacity is rounded up to a power of two. A flushMillis of 0 writes at the end of every batch.
+    public Transcript(WritableByteChannel channel, int capacity, int bufferSize, long flushMillis) {
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.channel = channel;
+        this.flushNanos = flushMillis * 1_000_000;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.writer = new Thread(this::run, "Transcript writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Shared Transcript on standard output, drained when the VM shuts down.
+    public static synchronized Transcript stdout() {
+        if(stdout == null) {
+            Transcript transcript = new Transcript(new FileOutputStream(FileDescriptor.out).getChannel(), 1 << 14, 64 * 1024, 10);
+            Runtime.getRuntime().addShutdownHook(new Thread(transcript::close));
+            stdout = transcript;
+        }
+        return stdout;
+    }
+
+    // Messages
+    public Transcript show(String text) {
+        publish(text);
+        return this;
+    }
+
+    public Transcript print(Object value) {
+        publish(String.valueOf(value));
+        return this;
+    }
+
+    public Transcript cr() {
+        publish("\n");
+        return this;
+    }
+
+    private void publish(String text) {
+        if(closed) throw new IllegalStateException("Transcript is closed.");
+        // Once the writer has failed nothing more reaches the channel, so refuse the message.
+        rethrow();
+        long seq = tail.getAndIncrement();
+        for(int spins = 0; seq - head > mask; spins++) {
+            // Ring is full: spin briefly, then park so the writer can run and free our slot.
+            if(!writer.isAlive()) {
+                rethrow();
+                throw new IllegalStateException("Transcript writer has stopped.");
+            }
+            LockSupport.unpark(writer);
+            if(spins < SPINS) Thread.onSpinWait();
+            else LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+        int index = (int) seq & mask;
+        slots.lazySet(index, text);
+        published.lazySet(index, seq);
+        // close() may have let the writer exit before this sequence was claimed; if so it was never written.
+        if(closed) {
+            awaitWriter();
+            rethrow();
+            if(written <= seq) throw new IllegalStateException("Transcript is closed.");
+        }
+    }
+
+    // Blocks until everything published before this call has been handed to the channel.
+    public void flush() {
+        long target = tail.get();
+        flushTarget.accumulateAndGet(target, Math::max);
+        LockSupport.unpark(writer);
+        while(written < target && writer.isAlive()) {
+            LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+        rethrow();
+    }
+
+    // Drains and stops the writer. The channel belongs to the caller and is left open.
+    public void close() {
+        if(closed) return;
+        closed = true;
+        awaitWriter();
+        rethrow();
+    }
+
+    private void awaitWriter() {
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rethrow() {
+        if(failure != null) throw new UncheckedIOException(failure);
+    }
+
+    // Writer thread
+    private void run() {
+        try {
+            while(true) {
+                boolean drained = drain();
+                long consumed = head;
+                if(buffer.position() > 0 && (flushNanos == 0 || flushTarget.get() > written || System.nanoTime() - lastWrite >= flushNanos)) {
+                    write();
+                }
+                if(buffer.position() == 0) {
+                    written = consumed;
+                }
+                if(!drained) {
+                    if(closed && consumed == tail.get()) {
+                        write();
+                        written = consumed;
+                        return;
+                    }
+                    long wait = buffer.position() > 0 ? Math.min(IDLE_NANOS, flushNanos - (System.nanoTime() - lastWrite)) : IDLE_NANOS;
+                    LockSupport.parkNanos(this, Math.max(wait, WAIT_NANOS));
+                }
+            }
+        } catch(IOException e) {
+            failure = e;
+        }
+    }
+
+    // Encodes every published entry into the buffer, writing whenever it fills.
+    private boolean drain() throws IOException {
+        long seq = head;
+        long start = seq;
+        while(true) {
+            int index = (int) seq & mask;
+            if(published.get(index) != seq) break;
+            String text = slots.get(index);
+            slots.lazySet(index, null);
+            encode(text);
+            head = ++seq;
+        }
+        return seq != start;
+    }
+
+    private void encode(String text) throws IOException {
+        CharBuffer in = CharBuffer.wrap(text);
+        encoder.reset();
+        while(true) {
+            CoderResult result = encoder.encode(in, buffer, true);
+            if(result.isOverflow()) {
+                write();
+            } else if(result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        while(encoder.flush(buffer).isOverflow()) {
+            write();
+        }
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        lastWrite = System.nanoTime();
+    }
+}
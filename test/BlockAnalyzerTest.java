@@ -0,0 +1,109 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.smallos.AST;
+import com.smallos.BlockAnalyzer;
+import com.smallos.Lexer;
+import com.smallos.Parser;
+import com.smallos.SourceMap;
+
+import java.util.Map;
+import java.util.Set;
+
+public class BlockAnalyzerTest {
+    private static Map<AST.Block, BlockAnalyzer.Info> analyze(String input) {
+        return BlockAnalyzer.analyze(Parser.parse(Lexer.tokenize(input)));
+    }
+
+    // Finds the analysis of the block whose source starts with the given text.
+    private static BlockAnalyzer.Info info(String input, Map<AST.Block, BlockAnalyzer.Info> infos, String prefix) {
+        for(Map.Entry<AST.Block, BlockAnalyzer.Info> entry : infos.entrySet()) {
+            if(input.startsWith(prefix, SourceMap.start(entry.getKey().span()))) return entry.getValue();
+        }
+        fail("No block starting with " + prefix);
+        return null;
+    }
+
+    @Test
+    public void classifyTest() {
+        String input = """
+        class Counter is
+            var count.
+
+            def run: limit as
+                var total := 0.
+                var step := 2.
+                var sorter := [:a b | a < b.].
+                var scaled := [:n | n * step.].
+                var bump := [count := count + 1.].
+                var sum := [:n | total := total + n.].
+                var exit := [:n | ^n.].
+                ^total.
+            end
+        end
+        """;
+
+        Map<AST.Block, BlockAnalyzer.Info> infos = analyze(input);
+        assertEquals(5, infos.size());
+
+        BlockAnalyzer.Info sorter = info(input, infos, "[:a b");
+        assertEquals(BlockAnalyzer.Kind.CLEAN, sorter.kind());
+        assertTrue(sorter.escapes());
+
+        BlockAnalyzer.Info scaled = info(input, infos, "[:n | n * step");
+        assertEquals(BlockAnalyzer.Kind.COPYING, scaled.kind());
+        assertEquals(Set.of("step"), scaled.captured());
+
+        BlockAnalyzer.Info bump = info(input, infos, "[count");
+        assertEquals(BlockAnalyzer.Kind.COPYING, bump.kind());
+        assertEquals(Set.of("self"), bump.captured());
+
+        assertEquals(BlockAnalyzer.Kind.FULL, info(input, infos, "[:n | total").kind());
+        assertEquals(BlockAnalyzer.Kind.FULL, info(input, infos, "[:n | ^n").kind());
+    }
+
+    @Test
+    public void inlineTest() {
+        String input = """
+        var sum := 0.
+        var i := 0.
+        1 to: 10 do: [:k | sum := sum + k.].
+        [i < 10.] whileTrue: [i := i + 1.].
+        sum > 10 ifTrue: [Transcript show: "big".] ifFalse: [Transcript show: "small".].
+        var later := [sum.].
+        """;
+
+        Map<AST.Block, BlockAnalyzer.Info> infos = analyze(input);
+        assertEquals(6, infos.size());
+
+        assertFalse(info(input, infos, "[:k").escapes());
+        assertFalse(info(input, infos, "[i <").escapes());
+        assertFalse(info(input, infos, "[i :=").escapes());
+        assertFalse(info(input, infos, "[Transcript show: \"big").escapes());
+        assertEquals(BlockAnalyzer.Kind.CLEAN, info(input, infos, "[Transcript show: \"small").kind());
+
+        BlockAnalyzer.Info later = info(input, infos, "[sum.]");
+        assertTrue(later.escapes());
+        assertEquals(BlockAnalyzer.Kind.FULL, later.kind());
+    }
+
+    @Test
+    public void nestedTest() {
+        String input = """
+        var base := 1.
+        var outer := [:x | [:y | x + y + base.].].
+        """;
+
+        Map<AST.Block, BlockAnalyzer.Info> infos = analyze(input);
+
+        BlockAnalyzer.Info outer = info(input, infos, "[:x");
+        assertEquals(Set.of("base"), outer.captured());
+        assertEquals(BlockAnalyzer.Kind.COPYING, outer.kind());
+
+        BlockAnalyzer.Info inner = info(input, infos, "[:y");
+        assertEquals(Set.of("x", "base"), inner.captured());
+        assertEquals(BlockAnalyzer.Kind.COPYING, inner.kind());
+    }
+}
@@ -0,0 +1,288 @@
+package test;
+
+import java.util.Random;
+
+// Deterministic SmallOS source generator. Each method mirrors a production in grammar.ebnf,
+// restricted to the forms the parser accepts, so every output parses cleanly.
+public class CorpusGenerator {
+    final static String[] names = {"alpha", "beta", "gamma", "delta", "result", "other", "count", "total", "item", "index"};
+    final static String[] selectors = {"at", "put", "with", "from", "to", "do", "ifTrue", "ifFalse", "add", "value"};
+    final static String[] unary = {"new", "size", "sqrt", "negated", "first", "last", "copy", "yourself"};
+    final static String[] binops = {"+", "-", "*", "/", "<", ">", "=", "<=", ">=", "=="};
+
+    private final Random random;
+    private final int maxDepth;
+    private final StringBuilder out = new StringBuilder();
+    private int classes;
+
+    public CorpusGenerator(long seed, int maxDepth) {
+        this.random = new Random(seed);
+        this.maxDepth = maxDepth;
+    }
+
+    // program = {statement}; stops at the first statement boundary past targetBytes.
+    public String generate(int targetBytes) {
+        out.setLength(0);
+        while(out.length() < targetBytes) {
+            int roll = random.nextInt(20);
+            if(roll == 0) classDef();
+            else if(roll == 1) traitDef();
+            else statement(0, 0);
+        }
+        return out.toString();
+    }
+
+    private boolean chance(int percent) {
+        return random.nextInt(100) < percent;
+    }
+    private String pick(String[] options) {
+        return options[random.nextInt(options.length)];
+    }
+    private void indent(int level) {
+        out.append("    ".repeat(level));
+    }
+
+    // Statements
+    private void statement(int level, int depth) {
+        indent(level);
+        int roll = random.nextInt(10);
+        if(roll < 2) {
+            out.append("var ").append(pick(names));
+            if(chance(70)) {
+                out.append(" := ");
+                expression(depth);
+            }
+        } else if(roll < 5) {
+            out.append(pick(names)).append(" := ");
+            expression(depth);
+        } else if(roll == 5 && level > 0) {
+            out.append("^");
+            expression(depth);
+        } else {
+            expression(depth);
+        }
+        out.append(".\n");
+    }
+
+    private void classDef() {
+        String name = "Class" + classes++;
+        out.append("class ").append(name);
+        if(chance(50)) out.append(" extending Object");
+        if(chance(50)) out.append(" implementing Trait").append(random.nextInt(10)).append(", Comparable");
+        out.append(" is\n");
+        int members = 1 + random.nextInt(6);
+        for(int i = 0; i < members; i++) {
+            if(chance(25)) {
+                indent(1);
+                out.append("@");
+                message(0);
+                out.append("\n");
+            }
+            if(chance(30)) {
+                indent(1);
+                if(chance(30)) out.append("static ");
+                out.append("var ").append(pick(names));
+                if(chance(50)) {
+                    out.append(" := ");
+                    expression(0);
+                }
+                out.append(".\n");
+            } else {
+                method();
+            }
+        }
+        out.append("end\n");
+    }
+
+    private void traitDef() {
+        out.append("trait Trait").append(random.nextInt(10));
+        if(chance(30)) out.append(" extending Comparable");
+        out.append(" is\n");
+        int members = 1 + random.nextInt(4);
+        for(int i = 0; i < members; i++) {
+            if(chance(50)) {
+                indent(1);
+                out.append("require ");
+                signature();
+                out.append(".\n");
+            } else {
+                method();
+            }
+        }
+        out.append("end\n");
+    }
+
+    private void method() {
+        indent(1);
+        if(chance(20)) out.append("static ");
+        out.append("def ");
+        signature();
+        out.append(" as\n");
+        int statements = random.nextInt(6);
+        for(int i = 0; i < statements; i++) {
+            statement(2, 0);
+        }
+        indent(1);
+        out.append("end\n");
+    }
+
+    private void signature() {
+        int roll = random.nextInt(3);
+        if(roll == 0) {
+            out.append(pick(unary));
+        } else if(roll == 1) {
+            out.append(pick(binops)).append(" ").append(pick(names));
+        } else {
+            int parts = 1 + random.nextInt(3);
+            for(int i = 0; i < parts; i++) {
+                if(i > 0) out.append(" ");
+                out.append(selectors[i * 3 % selectors.length]).append(": ").append(names[i]);
+            }
+        }
+    }
+
+    // Expressions
+    // expression = keywordExpression {cascade}
+    private void expression(int depth) {
+        keywordExpression(depth);
+        if(chance(10)) {
+            int cascades = 1 + random.nextInt(3);
+            for(int i = 0; i < cascades; i++) {
+                out.append("; ");
+                message(depth);
+            }
+        }
+    }
+
+    private void message(int depth) {
+        int roll = random.nextInt(3);
+        if(roll == 0) out.append(pick(unary));
+        else if(roll == 1) binaryMessage(depth);
+        else keywordMessage(depth);
+    }
+
+    // keywordExpression = binaryExpression [keywordMessage]
+    private void keywordExpression(int depth) {
+        binaryExpression(depth);
+        if(chance(25)) {
+            out.append(" ");
+            keywordMessage(depth);
+        }
+    }
+
+    // Keyword parts must be distinct within one message.
+    private void keywordMessage(int depth) {
+        int parts = 1 + random.nextInt(3);
+        int first = random.nextInt(selectors.length);
+        for(int i = 0; i < parts; i++) {
+            if(i > 0) out.append(" ");
+            out.append(selectors[(first + i) % selectors.length]).append(": ");
+            binaryExpression(depth);
+        }
+    }
+
+    // binaryExpression = unaryExpression {binaryMessage}
+    private void binaryExpression(int depth) {
+        unaryExpression(depth);
+        int messages = chance(40) ? 1 + random.nextInt(3) : 0;
+        for(int i = 0; i < messages; i++) {
+            out.append(" ");
+            binaryMessage(depth);
+        }
+    }
+
+    private void binaryMessage(int depth) {
+        out.append(pick(binops)).append(" ");
+        unaryExpression(depth);
+    }
+
+    // unaryExpression = value {unaryMessage}
+    private void unaryExpression(int depth) {
+        value(depth);
+        int messages = chance(30) ? 1 + random.nextInt(2) : 0;
+        for(int i = 0; i < messages; i++) {
+            out.append(" ").append(pick(unary));
+        }
+    }
+
+    private void value(int depth) {
+        int roll = depth < maxDepth ? random.nextInt(12) : random.nextInt(8);
+        if(roll < 4) {
+            out.append(pick(names));
+        } else if(roll < 8) {
+            literal();
+        } else if(roll < 10) {
+            out.append("(");
+            expression(depth + 1);
+            out.append(")");
+        } else if(roll == 10) {
+            arrayValue(depth + 1);
+        } else {
+            blockValue(depth + 1);
+        }
+    }
+
+    // array = "{" {expression ","} "}"
+    private void arrayValue(int depth) {
+        out.append("{");
+        int values = random.nextInt(4);
+        for(int i = 0; i < values; i++) {
+            expression(depth);
+            out.append(", ");
+        }
+        out.append("}");
+    }
+
+    // block = '[' [header] {statement} ']'
+    private void blockValue(int depth) {
+        out.append("[");
+        if(chance(50)) {
+            out.append(":");
+            int args = 1 + random.nextInt(2);
+            for(int i = 0; i < args; i++) out.append(names[i]).append(" ");
+            out.append("| ");
+        }
+        int statements = random.nextInt(3);
+        for(int i = 0; i < statements; i++) {
+            expression(depth);
+            out.append(". ");
+        }
+        out.append("]");
+    }
+
+    private void literal() {
+        int roll = random.nextInt(7);
+        if(roll < 3) out.append(random.nextInt(1000));
+        else if(roll == 3) out.append(random.nextInt(100)).append(".").append(random.nextInt(100));
+        else if(roll == 4) out.append("\"").append(pick(names)).append("\"");
+        else if(roll == 5) out.append("#").append(pick(selectors));
+        else out.append(pick(new String[] {"true", "false", "nil"}));
+    }
+
+    // Worst-case shapes
+    public static String nestedExpr(int depth) {
+        return "x := " + "(".repeat(depth) + "1" + ")".repeat(depth) + ".\n";
+    }
+
+    public static String nestedBlocks(int depth) {
+        return "x := " + "[".repeat(depth) + "]" + ".]".repeat(depth - 1) + ".\n";
+    }
+
+    public static String binaryChain(int length) {
+        StringBuilder bob = new StringBuilder("x := 1");
+        for(int i = 0; i < length; i++) bob.append(" + ").append(i);
+        return bob.append(".\n").toString();
+    }
+
+    public static String cascade(int length) {
+        StringBuilder bob = new StringBuilder("Transcript show: \"start\"");
+        for(int i = 0; i < length; i++) bob.append("; print: ").append(i);
+        return bob.append(".\n").toString();
+    }
+
+    public static String array(int length) {
+        StringBuilder bob = new StringBuilder("x := {");
+        for(int i = 0; i < length; i++) bob.append(i).append(", ");
+        return bob.append("}.\n").toString();
+    }
+}
@@ -0,0 +1,253 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.smallos.Interpreter;
+import com.smallos.Lexer;
+import com.smallos.Parser;
+import com.smallos.RuntimeError;
+import com.smallos.Transcript;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class InterpreterTest {
+    private static Object run(String input) {
+        return new Interpreter(null).run(Parser.parse(Lexer.tokenize(input)));
+    }
+
+    @Test
+    public void arithmeticTest() {
+        assertEquals(7L, run("3 + 4."));
+        assertEquals(14L, run("2 + 3 * 4 - 6."));
+        assertEquals(20L, run("2 + 3 * 4."));
+        assertEquals(2L, run("6 / 3."));
+        assertEquals(0.75, run("3 / 4."));
+        assertEquals(-3.5, run("7 / -2."));
+        assertEquals(Long.MIN_VALUE, run("var min := -9223372036854775807 - 1. min / 1."));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), run("var min := -9223372036854775807 - 1. min / -1."));
+        assertEquals(true, run("3 < 4."));
+        assertEquals(false, run("3 >= 4."));
+        assertEquals(true, run("3 != 4."));
+        RuntimeError e = assertThrows(RuntimeError.class, () -> run("1 / 0."));
+        assertEquals("ZeroDivide: division by zero.", e.getMessage());
+        assertThrows(RuntimeError.class, () -> run("1.5 / 0."));
+        assertThrows(RuntimeError.class, () -> run("1 / 0.0."));
+        assertThrows(RuntimeError.class, () -> run("100000000000000000000 / 0."));
+        assertThrows(RuntimeError.class, () -> run("var x := 0. 1 / x."));
+    }
+
+    @Test
+    public void promotionTest() {
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        assertEquals(max.add(BigInteger.ONE), run("9223372036854775807 + 1."));
+        assertEquals(max.multiply(max), run("9223372036854775807 * 9223372036854775807."));
+        assertEquals(Long.MAX_VALUE, run("9223372036854775807 + 1 - 1."));
+        assertEquals(BigInteger.TWO.pow(100), run("var x := 1. 100 timesRepeat: [x := x * 2.]. x."));
+        assertEquals(true, run("9223372036854775807 + 1 > 9223372036854775807."));
+    }
+
+    @Test
+    public void coercionTest() {
+        assertEquals(1.5, run("1 + 0.5."));
+        assertEquals(1.5, run("0.5 + 1."));
+        assertEquals(true, run("3 = 3.0."));
+        assertEquals(true, run("2.5 < 3."));
+        assertEquals(1e20 + 0.5, run("100000000000000000000 + 0.5."));
+        assertEquals(false, run("3 = \"3\"."));
+        assertEquals(false, run("100000000000000000001 = 100000000000000000000.0."));
+        assertEquals(true, run("100000000000000000000 = 100000000000000000000.0."));
+    }
+
+    @Test
+    public void controlTest() {
+        assertEquals(5050L, run("var sum := 0. 1 to: 100 do: [:i | sum := sum + i.]. sum."));
+        assertEquals(25L, run("var sum := 0. 1 to: 10 by: 2 do: [:i | sum := sum + i.]. sum."));
+        assertEquals(55L, run("var sum := 0. 10 to: 1 by: -1 do: [:i | sum := sum + i.]. sum."));
+        assertEquals(10L, run("var i := 0. [i < 10.] whileTrue: [i := i + 1.]. i."));
+        assertEquals(2.5, run("var x := 0.0. 1 to: 5 do: [:i | x := x + 0.5.]. x."));
+        assertEquals("small", run("3 < 4 ifTrue: [\"small\".] ifFalse: [\"large\".]."));
+        assertEquals(6L, run("var b := [:a | a * 2.]. b value: 3."));
+        assertEquals(6L, run("var c := 3 < 4. var b := [6.]. c ifTrue: b."));
+        assertEquals(4L, run("var i := 0. [i := i + 1. i < 4.] whileTrue. i."));
+        assertEquals(3L, run("var x := nil. x ifNil: [3.]."));
+        assertEquals(8L, run("var x := 4. x ifNil: [3.] ifNotNil: [:y | y * 2.]."));
+        assertEquals(5L, run("var x := 5. x ifNil: [3.]."));
+
+        // Float and LargeInteger counts run the inlined block in the same frame.
+        assertEquals(2L, run("var x := 0. 2.0 timesRepeat: [x := x + 1.]. x."));
+        assertEquals(1L, run("var x := 0. 100000000000000000000 timesRepeat: [x := x + 1. x = 1 ifTrue: [^x.].]. x."));
+
+        // A cascade primary is a real send, with real closures.
+        assertEquals(1L, run("var x := 0. 3 < 4 ifTrue: [x := 1.]; yourself. x."));
+        assertEquals(3L, run("var i := 0. [i := i + 1. i < 3.] whileTrue; yourself. i."));
+
+        // A clean block answers the same closure each time it is evaluated.
+        assertEquals(true, run("var a := nil. var b := nil. 1 to: 2 do: [:i | b := [3.]. a isNil ifTrue: [a := b.].]. a == b."));
+        assertEquals(false, run("var a := nil. var b := nil. 1 to: 2 do: [:i | b := [i.]. a isNil ifTrue: [a := b.].]. a == b."));
+
+        // Closures created in a loop body each keep their own iteration's variables.
+        assertEquals(1L, run("var bs := {nil, nil, nil,}. 1 to: 3 do: [:i | bs at: i put: [i.].]. (bs at: 1) value."));
+        assertEquals(2L, run("var bs := {nil, nil, nil,}. 1 to: 3 do: [:i | var j := i * 2. i = 1 ifTrue: [bs at: i put: [j.].].]. (bs at: 1) value."));
+        assertEquals(6L, run("var bs := {nil, nil, nil,}. var n := 0. [n < 3.] whileTrue: [var k := n. n := n + 1. bs at: n put: [k * 3.].]. (bs at: 3) value."));
+    }
+
+    @Test
+    public void methodTest() {
+        String input = """
+        class Integer is
+            def fib as
+                self < 2 ifTrue: [^self.].
+                ^(self - 1) fib + (self - 2) fib.
+            end
+
+            def between: low and: high as
+                ^low <= self and: [self <= high.].
+            end
+        end
+        20 fib.
+        """;
+        assertEquals(6765L, run(input));
+        assertEquals(true, run(input.replace("20 fib.", "5 between: 1 and: 10.")));
+        assertEquals(false, run(input.replace("20 fib.", "100000000000000000000 between: 1 and: 10.")));
+
+        // A ^ inside an inlined block stops the rest of the enclosing expression.
+        String early = """
+        class Probe is
+            static def bar as
+                (true ifTrue: [^1.]) frobnicate.
+                ^2.
+            end
+
+            static def baz as
+                G := 10 + (true ifTrue: [^1.] ifFalse: [2.]).
+                ^2.
+            end
+        end
+        G := 0.
+        """;
+        assertEquals(1L, run(early + "Probe bar."));
+        assertEquals(0L, run(early + "Probe baz. G."));
+        assertEquals(3L, run("var x := 0. 1 to: 5 do: [:i | i = 3 ifTrue: [^i.]. x := i.]. x."));
+    }
+
+    @Test
+    public void redefinitionTest() {
+        String input = """
+        class SmallInteger is
+            def + other as
+                ^42.
+            end
+        end
+        """;
+        assertEquals(42L, run(input + "3 + 4."));
+        assertEquals(-1L, run(input + "3 - 4."));
+        assertEquals(4.5, run(input + "0.5 + 4."));
+
+        // Defined on LargeInteger, it reaches LargeInteger only.
+        String large = input.replace("SmallInteger", "LargeInteger");
+        assertEquals(42L, run(large + "100000000000000000000 + 1."));
+        assertEquals(7L, run(large + "3 + 4."));
+        assertEquals(1.5, run(large + "0.5 + 1."));
+
+        // The primitives belong to the numeric classes, so inherited methods do not hide them.
+        assertEquals(new BigInteger("100000000000000000001"), run(input.replace("SmallInteger", "Integer") + "100000000000000000000 + 1."));
+        String object = """
+        class Object is
+            def = other as
+                ^false.
+            end
+
+            def isZero as
+                ^self = 0.
+            end
+        end
+        """;
+        assertEquals(true, run(object + "3 = 3."));
+        assertEquals(true, run(object + "0 isZero."));
+        assertEquals(false, run(object + "\"a\" = \"a\"."));
+
+        // super reaches the primitive again.
+        String wrapped = """
+        class SmallInteger is
+            def * other as
+                ^super * other + 1.
+            end
+        end
+        3 * 4.
+        """;
+        assertEquals(13L, run(wrapped));
+    }
+
+    @Test
+    public void transcriptTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transcript transcript = new Transcript(Channels.newChannel(out));
+        new Interpreter(transcript).run(Parser.parse(Lexer.tokenize("Transcript show: \"sum \"; print: 3 + 4; cr.")));
+        transcript.close();
+        assertEquals("sum 7\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void errorTest() {
+        RuntimeError e = assertThrows(RuntimeError.class, () -> run("3 frobnicate."));
+        assertTrue(e.getMessage().contains("does not understand #frobnicate"), e.getMessage());
+        assertThrows(RuntimeError.class, () -> run("missing + 1."));
+        assertThrows(RuntimeError.class, () -> run("3 ifTrue: [4.]."));
+
+        // Unboxed values are boxed before they are printed.
+        e = assertThrows(RuntimeError.class, () -> run("var i := 7. [i.] whileTrue: [i := i - 1.]."));
+        assertEquals("7 is not a Boolean.", e.getMessage());
+        e = assertThrows(RuntimeError.class, () -> run("3 < 4 and: [5.]."));
+        assertEquals("5 is not a Boolean.", e.getMessage());
+        e = assertThrows(RuntimeError.class, () -> run("2.5 ifTrue: [4.]."));
+        assertEquals("2.5 is not a Boolean.", e.getMessage());
+
+        // Loops sent with a closure check their bounds, step and block like the inlined ones.
+        assertThrows(RuntimeError.class, () -> run("var b := [:i | i.]. 1 to: nil do: b."));
+        assertThrows(RuntimeError.class, () -> run("var b := [:i | i.]. 1 to: 0 by: 0 do: b."));
+        assertThrows(RuntimeError.class, () -> run("1 to: 0 by: 0 do: [:i | i.]."));
+        assertThrows(RuntimeError.class, () -> run("1 to: 3 do: 4."));
+        assertThrows(RuntimeError.class, () -> run("var b := [3.]. 1 to: 3 do: b."));
+        assertThrows(RuntimeError.class, () -> run("var b := [:i | i.]. 3 timesRepeat: b."));
+        assertThrows(RuntimeError.class, () -> run("3 timesRepeat: 4."));
+    }
+
+    private static long allocated(Interpreter interpreter, com.smallos.AST.Program program) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        interpreter.run(program);
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+
+    @Test
+    public void allocationTest() {
+        String loops = """
+        var sum := 0.
+        var x := 0.0.
+        var i := 0.
+        1 to: LIMIT do: [:k | sum := sum + (k * 3 / 3) - 1. x := x + 0.5 * 1.].
+        [i < LIMIT.] whileTrue: [i := i + 1. sum < 0 ifTrue: [sum := 0.].].
+        sum.
+        """;
+        String small = loops.replace("LIMIT", "1000");
+        String large = loops.replace("LIMIT", "1000000");
+        Interpreter interpreter = new Interpreter(null);
+        com.smallos.AST.Program smallProgram = Parser.parse(Lexer.tokenize(small));
+        com.smallos.AST.Program largeProgram = Parser.parse(Lexer.tokenize(large));
+
+        // Warm up so resolution and class loading are out of the measurement.
+        interpreter.run(largeProgram);
+        long base = allocated(interpreter, smallProgram);
+        long total = allocated(interpreter, largeProgram);
+
+        // A boxed Long or Double per operation would be tens of megabytes here.
+        long perMillion = total - base;
+        assertTrue(perMillion < 64 * 1024, "Numeric loops allocated " + perMillion + " bytes over 999000 extra iterations");
+    }
+}
@@ -4,8 +4,11 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.smallos.Lexer;
+import com.smallos.Parser;
+import com.smallos.SourceMap;
 import com.smallos.SyntaxError;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import java.util.stream.Collectors;
@@ -114,4 +117,50 @@ public class LexerTest {
 
         System.out.println("Test concluded.");
     }
+
+    @Test
+    public void recoveryTest() {
+        String input = "x := 3 ⹇⒔.\ny := 4 € + 2.\nz := .";
+        List<SyntaxError> errors = new ArrayList<>();
+        List<Lexer.Token> tokens = Lexer.tokenize(input, errors);
+
+        // One error per run of unknown characters, and lexing carries on past each.
+        assertEquals(2, errors.size());
+        assertEquals(1, errors.get(0).line());
+        assertEquals(8, errors.get(0).column());
+        assertEquals(2, errors.get(1).line());
+        assertEquals("z", tokens.get(tokens.size() - 4).value());
+
+        // The parser still reports its own errors in the same pass.
+        Parser.Result result = Parser.parseRecovering(tokens);
+        assertEquals(1, result.errors().size());
+        assertEquals(3, result.errors().get(0).line());
+    }
+
+    @Test
+    public void positionTest() {
+        String input = "var x := 4.\n\n  y := x + 3.\n";
+
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+        Lexer.Token y = tokens.get(5);
+
+        assertEquals("y", y.value());
+        assertEquals(3, y.lineNum());
+        assertEquals(3, y.column());
+        assertEquals(input.indexOf("y"), SourceMap.start(y.span()));
+        assertEquals(input.indexOf("y") + 1, SourceMap.end(y.span()));
+
+        SourceMap source = y.source();
+        assertEquals(4, source.lineCount());
+        assertEquals(1, source.line(0));
+        assertEquals(2, source.line(12));
+        assertEquals(3, source.line(input.length() - 1));
+        assertEquals(1, source.line(3));
+        assertEquals(4, source.column(3));
+        assertEquals("3:3", source.format(y.span()));
+
+        Lexer.Token eof = tokens.get(tokens.size() - 1);
+        assertEquals(4, eof.lineNum());
+        assertEquals(1, eof.column());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.smallos.AST;
+import com.smallos.Lexer;
+import com.smallos.Numbers;
+import com.smallos.Parser;
+
+import java.math.BigInteger;
+
+public class NumbersTest {
+    @Test
+    public void parseTest() {
+        assertEquals(42L, Numbers.parse("42"));
+        assertEquals(-7L, Numbers.parse("-7"));
+        assertEquals(2.5, Numbers.parse("2.5"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), Numbers.parse("123456789012345678901234567890"));
+        assertEquals(Long.MIN_VALUE, Numbers.parse("-9223372036854775808"));
+
+        AST.Program program = Parser.parse(Lexer.tokenize("x := 3. y := 3.0."));
+        assertEquals(3L, ((AST.Num) ((AST.Assignment) program.statements().get(0)).value()).value());
+        assertEquals(3.0, ((AST.Num) ((AST.Assignment) program.statements().get(1)).value()).value());
+    }
+
+    @Test
+    public void promotionTest() {
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        assertEquals(max.add(BigInteger.ONE), Numbers.arithmetic(Numbers.ADD, Long.MAX_VALUE, 1L));
+        assertEquals(max.multiply(max), Numbers.arithmetic(Numbers.MUL, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(max.add(BigInteger.ONE), Numbers.arithmetic(Numbers.DIV, Long.MIN_VALUE, -1L));
+
+        // Results that fit come back as SmallIntegers.
+        assertEquals(Long.MAX_VALUE, Numbers.arithmetic(Numbers.SUB, max.add(BigInteger.ONE), 1L));
+        assertEquals(0L, Numbers.arithmetic(Numbers.SUB, max.add(BigInteger.TEN), max.add(BigInteger.TEN)));
+    }
+
+    @Test
+    public void coercionTest() {
+        BigInteger large = BigInteger.TEN.pow(20);
+        assertEquals(3.5, Numbers.arithmetic(Numbers.ADD, 3L, 0.5));
+        assertEquals(1e20 + 0.5, Numbers.arithmetic(Numbers.ADD, large, 0.5));
+        assertEquals(true, Numbers.arithmetic(Numbers.LT, 3L, large));
+        assertEquals(true, Numbers.arithmetic(Numbers.EQ, 2L, 2.0));
+        assertEquals(false, Numbers.arithmetic(Numbers.GE, large, 1e21));
+
+        // LargeIntegers compare exactly against Floats.
+        BigInteger odd = large.add(BigInteger.ONE);
+        assertEquals(false, Numbers.compare(Numbers.EQ, odd, 1e20));
+        assertEquals(true, Numbers.compare(Numbers.GT, odd, 1e20));
+        assertEquals(true, Numbers.compare(Numbers.LT, 1e20, odd));
+        assertEquals(true, Numbers.compare(Numbers.EQ, large, 1e20));
+        assertEquals(true, Numbers.compare(Numbers.LT, odd, Double.POSITIVE_INFINITY));
+        assertEquals(false, Numbers.compare(Numbers.EQ, odd, Double.NaN));
+    }
+
+    @Test
+    public void divisionTest() {
+        assertEquals(2L, Numbers.arithmetic(Numbers.DIV, 6L, 3L));
+        assertEquals(0.75, Numbers.arithmetic(Numbers.DIV, 3L, 4L));
+        assertEquals(-3.5, Numbers.arithmetic(Numbers.DIV, 7L, -2L));
+        assertEquals(BigInteger.TEN.pow(20), Numbers.arithmetic(Numbers.DIV, BigInteger.TEN.pow(21), 10L));
+        assertEquals(2.5, Numbers.arithmetic(Numbers.DIV, 5.0, 2L));
+        assertThrows(ArithmeticException.class, () -> Numbers.arithmetic(Numbers.DIV, 1L, 0L));
+        assertThrows(ArithmeticException.class, () -> Numbers.arithmetic(Numbers.DIV, 1.5, 0L));
+    }
+
+    @Test
+    public void opcodeTest() {
+        assertEquals(Numbers.ADD, Numbers.opcode("+"));
+        assertEquals(Numbers.DIV, Numbers.opcode("/"));
+        assertEquals(Numbers.NE, Numbers.opcode("!="));
+        assertEquals(Numbers.NONE, Numbers.opcode("=="));
+        assertEquals(Numbers.NONE, Numbers.opcode("at:put:"));
+    }
+}
@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.smallos.AST;
 import com.smallos.Lexer;
 import com.smallos.Parser;
+import com.smallos.SourceMap;
 import com.smallos.SyntaxError;
 
 public class ParserTest {
@@ -156,4 +157,127 @@ public class ParserTest {
 
         System.out.println("Test concluded.");
     }
-}
+
+    @Test
+    public void recoveryTest() {
+        System.out.println("Recovery Parser Test:\n");
+        String input = """
+        var x := 4.
+        x := ) 3.
+        class Test is
+            var y.
+            def broken as
+                y := 3 + .
+                ^y.
+            end
+            require nothing.
+        end
+        trait Other is
+            var z.
+            require run.
+        end
+        x := 5.
+        """;
+
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+
+        Parser.Result result = Parser.parseRecovering(tokens);
+        System.out.println(result.program());
+        result.errors().forEach(e -> System.out.println(e.line() + ":" + e.column() + " " + e.getMessage()));
+
+        assertEquals(4, result.errors().size());
+        assertEquals(2, result.errors().get(0).line());
+        assertEquals(6, result.errors().get(0).column());
+        assertEquals(6, result.errors().get(1).line());
+        assertEquals(9, result.errors().get(2).line());
+        assertEquals(12, result.errors().get(3).line());
+        assertEquals(5, result.program().statements().size());
+        assertInstanceOf(AST.Error.class, result.program().statements().get(1));
+
+        // Periods inside the failed statement's own brackets do not end it.
+        String[] blocks = {"x := [ 3 + . y. ].\ny := 1.", "[:a | a foo: . a bar. ].\ny := 1.", "x := (3 + [ . ]).\ny := 1."};
+        for(String block : blocks) {
+            Parser.Result blockResult = Parser.parseRecovering(Lexer.tokenize(block));
+            assertEquals(1, blockResult.errors().size(), block);
+            assertEquals(2, blockResult.program().statements().size(), block);
+            assertInstanceOf(AST.Assignment.class, blockResult.program().statements().get(1), block);
+        }
+
+        System.out.println("Test concluded.");
+    }
+
+    @Test
+    public void recoveryUnwindTest() {
+        System.out.println("Recovery Unwind Parser Test:\n");
+        String input = """
+        class First is
+            def broken as
+                ^ ]
+        class Second is
+            var y.
+        end
+        """;
+
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+
+        Parser.Result result = Parser.parseRecovering(tokens);
+        System.out.println(result.program());
+
+        assertEquals(1, result.errors().size());
+        assertEquals(2, result.program().statements().size());
+        assertInstanceOf(AST.ClassDef.class, result.program().statements().get(1));
+
+        System.out.println("Test concluded.");
+    }
+
+    @Test
+    public void recoveryValidTest() {
+        String input = """
+        var x := 4.
+        class Test implementing Other is
+            var y.
+            def + other as
+                ^y + other.
+            end
+        end
+        """;
+
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+
+        Parser.Result result = Parser.parseRecovering(tokens);
+        assertTrue(result.errors().isEmpty());
+        assertEquals(Parser.parse(tokens).toString(), result.program().toString());
+    }
+
+    @Test
+    public void spanTest() {
+        String input = """
+        var x := 4.
+        class Test is
+            def foo: a as
+                ^(a + 1) * x.
+            end
+        end
+        """;
+
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+        AST.Program output = Parser.parse(tokens);
+
+        AST.ClassDef cls = (AST.ClassDef) output.statements().get(1);
+        AST.Method foo = (AST.Method) cls.members().get(0);
+        AST.Answer answer = (AST.Answer) foo.statements().get(0);
+        AST.BinaryExpression expr = (AST.BinaryExpression) answer.value();
+
+        assertEquals("class Test is\n    def foo: a as\n        ^(a + 1) * x.\n    end\nend", text(input, cls.span()));
+        assertEquals("^(a + 1) * x.", text(input, answer.span()));
+        assertEquals("(a + 1) * x", text(input, expr.span()));
+        assertEquals("(a + 1)", text(input, expr.receiver().span()));
+        assertEquals("* x", text(input, expr.message().get(0).span()));
+        assertEquals(4, tokens.get(0).source().line(SourceMap.start(answer.span())));
+        assertEquals(9, tokens.get(0).source().column(SourceMap.start(answer.span())));
+    }
+
+    private static String text(String input, long span) {
+        return input.substring(SourceMap.start(span), SourceMap.end(span));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.smallos.AST;
+import com.smallos.Lexer;
+import com.smallos.Parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+public class ScalingTest {
+    // Nesting depth every worst-case shape must parse without overflowing the stack.
+    final static int DEPTH = 100_000;
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static AST.Program compile(String input) {
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+        return Parser.parse(tokens);
+    }
+
+    // Best of several runs, in nanoseconds.
+    private static long time(String input) {
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            compile(input);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static long allocation(String input) {
+        long start = allocatedBytes();
+        compile(input);
+        return allocatedBytes() - start;
+    }
+
+    @Test
+    public void deterministicTest() {
+        assertEquals(new CorpusGenerator(42, 4).generate(20_000), new CorpusGenerator(42, 4).generate(20_000));
+        assertNotEquals(new CorpusGenerator(42, 4).generate(20_000), new CorpusGenerator(43, 4).generate(20_000));
+    }
+
+    @Test
+    public void validityTest() {
+        for(int seed = 0; seed < 20; seed++) {
+            String input = new CorpusGenerator(seed, 6).generate(50_000);
+            Parser.Result result = Parser.parseRecovering(Lexer.tokenize(input));
+            String label = "seed " + seed + ": ";
+            assertTrue(result.errors().isEmpty(), () -> label + result.errors().get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void linearTest() {
+        String small = new CorpusGenerator(7, 5).generate(100_000);
+        String large = new CorpusGenerator(7, 5).generate(400_000);
+        double size = (double) large.length() / small.length();
+
+        // Warm up the JIT before measuring.
+        for(int i = 0; i < 3; i++) compile(large);
+
+        double timeRatio = (double) time(large) / time(small);
+        double heapRatio = (double) allocation(large) / allocation(small);
+        System.out.printf("Scaling %.2fx input: %.2fx time, %.2fx allocation%n", size, timeRatio, heapRatio);
+
+        // Quadratic behaviour would show up as roughly size^2 = 16x.
+        assertTrue(timeRatio < size * 2, "Parse time grew " + timeRatio + "x for " + size + "x input");
+        assertTrue(heapRatio < size * 1.25, "Allocation grew " + heapRatio + "x for " + size + "x input");
+    }
+
+    @Test
+    public void deepNestingTest() {
+        assertDoesNotThrow(() -> compile(CorpusGenerator.nestedExpr(DEPTH)));
+        assertDoesNotThrow(() -> compile(CorpusGenerator.nestedBlocks(DEPTH)));
+    }
+
+    @Test
+    public void longShapesTest() {
+        int length = 50_000;
+        AST.Program chain = compile(CorpusGenerator.binaryChain(length));
+        AST.Assignment assignment = (AST.Assignment) chain.statements().get(0);
+        assertEquals(length, ((AST.BinaryExpression) assignment.value()).message().size());
+
+        AST.Program cascade = compile(CorpusGenerator.cascade(length));
+        assertEquals(length, ((AST.Cascade) cascade.statements().get(0)).messages().size());
+
+        AST.Program array = compile(CorpusGenerator.array(length));
+        assignment = (AST.Assignment) array.statements().get(0);
+        assertEquals(length, ((AST.Array) assignment.value()).values().size());
+    }
+}
@@ -0,0 +1,60 @@
+package test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Wall-clock startup of a single compile, with and without the class data sharing archive.
+// Usage: StartupBenchmark <jar> <archive> <runs> <source.st>...
+public class StartupBenchmark {
+    private static long run(List<String> command) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        int status = process.waitFor();
+        long elapsed = System.nanoTime() - start;
+        if(status != 0) throw new IllegalStateException("Compile exited with status " + status + ": " + command);
+        return elapsed;
+    }
+
+    private static List<String> command(String java, String option, String jar, List<String> sources) {
+        List<String> command = new ArrayList<>(List.of(java, option, "-jar", jar));
+        command.addAll(sources);
+        return command;
+    }
+
+    private static double median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String jar = args[0];
+        String archive = args[1];
+        int runs = Integer.parseInt(args[2]);
+        List<String> sources = List.of(args).subList(3, args.length);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        List<String> plain = command(java, "-Xshare:auto", jar, sources);
+        List<String> cds = command(java, "-XX:SharedArchiveFile=" + archive, jar, sources);
+
+        // Warm the file cache, then alternate so drift affects both equally.
+        run(plain);
+        run(cds);
+        long[] plainTimes = new long[runs];
+        long[] cdsTimes = new long[runs];
+        for(int i = 0; i < runs; i++) {
+            plainTimes[i] = run(plain);
+            cdsTimes[i] = run(cds);
+        }
+
+        double before = median(plainTimes);
+        double after = median(cdsTimes);
+        System.out.printf("Startup of one compile (median of %d): default CDS %.1f ms, app CDS archive %.1f ms (%.0f%% faster)%n",
+            runs, before, after, 100 * (before - after) / before);
+    }
+}
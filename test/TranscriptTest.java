@@ -0,0 +1,131 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.smallos.Transcript;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TranscriptTest {
+    @Test
+    public void helloTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transcript transcript = new Transcript(Channels.newChannel(out));
+
+        transcript.show("Hello world!").print(7).cr();
+        transcript.close();
+
+        assertEquals("Hello world!7\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void flushTest() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transcript transcript = new Transcript(Channels.newChannel(out), 16, 1024, 60_000);
+
+        transcript.show("Ünïcode ⌘").cr();
+        transcript.flush();
+
+        assertEquals("Ünïcode ⌘\n", out.toString(StandardCharsets.UTF_8));
+        transcript.close();
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // A tiny ring and buffer force producers to wrap and the writer to split batches.
+        Transcript transcript = new Transcript(Channels.newChannel(out), 64, 128, 0);
+        int producers = 8, messages = 10_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < producers; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                for(int i = 0; i < messages; i++) {
+                    transcript.show(id + ":" + i + "\n");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        transcript.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(producers * messages, lines.length);
+        int[] next = new int[producers];
+        for(String line : lines) {
+            String[] parts = line.split(":");
+            int id = Integer.parseInt(parts[0]);
+            assertEquals(next[id]++, Integer.parseInt(parts[1]));
+        }
+    }
+
+    @Test
+    public void closeRaceTest() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transcript transcript = new Transcript(Channels.newChannel(out), 64, 128, 0);
+        int producers = 4;
+
+        // Every show: that returns normally must reach the channel, even when close() races with it.
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < producers; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while(true) {
+                        transcript.show("x\n");
+                        accepted.incrementAndGet();
+                    }
+                } catch(IllegalStateException e) {
+                    // Closed.
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread.sleep(20);
+        transcript.close();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        String output = out.toString(StandardCharsets.UTF_8);
+        assertEquals(accepted.get(), output.length() / 2);
+    }
+
+    @Test
+    public void failureTest() {
+        WritableByteChannel broken = new WritableByteChannel() {
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            public boolean isOpen() {
+                return true;
+            }
+
+            public void close() {}
+        };
+        Transcript transcript = new Transcript(broken);
+
+        // After the writer fails, show: reports it instead of silently dropping messages.
+        transcript.show("lost");
+        assertThrows(UncheckedIOException.class, transcript::flush);
+        for(int i = 0; i < 500; i++) {
+            assertThrows(UncheckedIOException.class, () -> transcript.show("dropped"));
+        }
+    }
+}